@@ -17,7 +17,6 @@ package org.walkmod.javalang.compiler.actions;
 import java.util.List;
 
 import org.walkmod.javalang.ast.Node;
-import org.walkmod.javalang.ast.SymbolReference;
 import org.walkmod.javalang.ast.body.EnumConstantDeclaration;
 import org.walkmod.javalang.ast.body.EnumDeclaration;
 import org.walkmod.javalang.compiler.symbols.ReferenceType;
@@ -42,13 +41,4 @@ public class LoadEnumConstantLiteralsAction extends SymbolAction {
             }
         }
     }
-
-    @Override
-    public void doPop(Symbol<?> symbol, SymbolTable table) throws Exception {}
-
-    @Override
-    public void doRead(Symbol<?> symbol, SymbolTable table, SymbolReference reference) throws Exception {}
-
-    @Override
-    public void doWrite(Symbol<?> symbol, SymbolTable table, SymbolReference reference) throws Exception {}
 }
@@ -16,6 +16,7 @@ package org.walkmod.javalang.compiler.actions;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.TypeVariable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -50,6 +51,7 @@ import org.walkmod.javalang.compiler.symbols.Symbol;
 import org.walkmod.javalang.compiler.symbols.SymbolAction;
 import org.walkmod.javalang.compiler.symbols.SymbolTable;
 import org.walkmod.javalang.compiler.symbols.SymbolType;
+import org.walkmod.javalang.compiler.types.AnalysisContext;
 import org.walkmod.javalang.compiler.types.TypeVisitorAdapter;
 import org.walkmod.javalang.compiler.types.TypesLoaderVisitor;
 import org.walkmod.javalang.visitors.GenericVisitorAdapter;
@@ -76,7 +78,8 @@ public class LoadMethodDeclarationsAction extends SymbolAction {
         SymbolType resolvedType = ASTSymbolTypeResolver.getInstance().valueOf(type);
         if (resolvedType == null) {
             resolvedType = new SymbolType(Object.class);
-        } else {
+        } else if (!resolvedType.isFrozen()) {
+            // the immutable types load their class from their name when it is first read
             resolvedType.setClazz(TypesLoaderVisitor.getClassLoader().loadClass(resolvedType));
         }
         type.setSymbolData(resolvedType);
@@ -93,14 +96,13 @@ public class LoadMethodDeclarationsAction extends SymbolAction {
                 args[i] = ASTSymbolTypeResolver.getInstance().valueOf(currentParam.getType(), tps);
                 int arrayCount = currentParam.getId().getArrayCount();
                 if (arrayCount > 0) {
-                    args[i].setArrayCount(args[i].getArrayCount() + arrayCount);
+                    args[i] = args[i].withArrayCount(args[i].getArrayCount() + arrayCount);
                 }
                 params.get(i).getType().setSymbolData(args[i]);
                 if (i == args.length - 1) {
                     hasDynamicArgs = params.get(i).isVarArgs();
                     if (hasDynamicArgs) {
-                        args[i] = args[i].clone();
-                        args[i].setArrayCount(args[i].getArrayCount() + 1);
+                        args[i] = args[i].withArrayCount(args[i].getArrayCount() + 1);
                     }
                 }
 
@@ -275,34 +277,101 @@ public class LoadMethodDeclarationsAction extends SymbolAction {
 
         private void loadMethods(Collection<Method> methods, List<SymbolType> params, SymbolType st) {
             for (Method method : methods) {
-                Map<String, SymbolType> parameterTypes = null;
-                try {
-                    java.lang.reflect.Type[] genericParameterTypes = method.getGenericParameterTypes();
-                    SymbolType[] methodArgs = new SymbolType[genericParameterTypes.length];
-                    if (params != null) {
-                        parameterTypes = new HashMap<String, SymbolType>();
-
-                        TypeVariable<?>[] typeParams = method.getDeclaringClass().getTypeParameters();
-                        for (int i = 0; i < params.size() && i < typeParams.length; i++) {
-                            SymbolType.valueOf(typeParams[i], params.get(i), parameterTypes, null);
-                        }
+                table.pushSymbol(buildMethodSymbol(method, params, st));
+            }
+        }
+
+        private MethodSymbol buildMethodSymbol(Method method, List<SymbolType> params, SymbolType st) {
+            Map<String, SymbolType> parameterTypes = null;
+            try {
+                java.lang.reflect.Type[] genericParameterTypes = method.getGenericParameterTypes();
+                SymbolType[] methodArgs = new SymbolType[genericParameterTypes.length];
+                if (params != null) {
+                    parameterTypes = new HashMap<String, SymbolType>();
+
+                    TypeVariable<?>[] typeParams = method.getDeclaringClass().getTypeParameters();
+                    for (int i = 0; i < params.size() && i < typeParams.length; i++) {
+                        SymbolType.valueOf(typeParams[i], params.get(i), parameterTypes, null);
                     }
+                }
 
-                    for (int i = 0; i < genericParameterTypes.length; i++) {
-                        methodArgs[i] = SymbolType.valueOf(genericParameterTypes[i], parameterTypes);
+                for (int i = 0; i < genericParameterTypes.length; i++) {
+                    methodArgs[i] = SymbolType.valueOf(genericParameterTypes[i], parameterTypes);
 
-                    }
+                }
 
-                    SymbolType returnType = SymbolType.valueOf(method, parameterTypes);
-                    MethodSymbol methodSymbol = new MethodSymbol(method.getName(), returnType, null, st, methodArgs,
-                            false, method.isVarArgs(), method, null);
+                SymbolType returnType = SymbolType.valueOf(method, parameterTypes);
+                return new MethodSymbol(method.getName(), returnType, null, st, methodArgs, false,
+                        method.isVarArgs(), method, null);
 
-                    table.pushSymbol(methodSymbol);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
 
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
+        /**
+         * Loads the inherited methods of a classpath class. They are resolved once per analysis
+         * context, super type and type arguments, and every compilation unit that extends the class
+         * with the same type arguments loads a copy of them.
+         */
+        private void loadInheritedMethods(Class<?> clazz, List<SymbolType> params, SymbolType st) {
+            List<Object> key = getInheritedMethodsKey(clazz, params, st);
+            if (key == null) {
+                loadMethods(MethodInspector.getInheritedMethods(clazz), params, st);
+                return;
+            }
+            AnalysisContext context = AnalysisContext.getCurrent();
+            Scope methods = context.getInheritedMethods(key);
+            if (methods == null) {
+                methods = new Scope();
+                for (Method method : MethodInspector.getInheritedMethods(clazz)) {
+                    methods.addSymbol(buildMethodSymbol(method, params, st));
+                }
+                methods.freeze();
+                methods = context.putInheritedMethods(key, methods);
+            }
+            for (Symbol<?> symbol : methods.getSymbols()) {
+                table.pushSymbol(((MethodSymbol) symbol).copy(null));
+            }
+        }
+
+        /**
+         * @return the class and the structural fingerprints of the super type and the type
+         *         arguments, or null if the arguments depend on type variables of the compilation
+         *         unit.
+         */
+        private List<Object> getInheritedMethodsKey(Class<?> clazz, List<SymbolType> params, SymbolType st) {
+            if (params != null && !isClosed(params)) {
+                return null;
+            }
+            List<Object> key = new ArrayList<Object>();
+            key.add(clazz);
+            if (st != null) {
+                st.fingerprint(key);
+            }
+            key.add(params == null ? -1 : params.size());
+            if (params != null) {
+                for (SymbolType param : params) {
+                    param.fingerprint(key);
                 }
             }
+            return key;
+        }
+
+        private boolean isClosed(List<SymbolType> types) {
+            if (types == null) {
+                return true;
+            }
+            for (SymbolType type : types) {
+                if (type == null || type.isTemplateVariable()) {
+                    return false;
+                }
+                if (!isClosed(type.getParameterizedTypes()) || !isClosed(type.getBounds())
+                        || !isClosed(type.getLowerBounds())) {
+                    return false;
+                }
+            }
+            return true;
         }
 
         public void loadExtendsOrImplements(List<ClassOrInterfaceType> extendsList) {
@@ -372,7 +441,12 @@ public class LoadMethodDeclarationsAction extends SymbolAction {
                                                             ReferenceType.METHOD);
 
                                                     if (sym != null) {
-                                                        sym.getType().setMethod(current);
+                                                        SymbolType methodType = sym.getType();
+                                                        if (methodType.isFrozen()) {
+                                                            sym.setType(methodType.withMethod(current));
+                                                        } else {
+                                                            methodType.setMethod(current);
+                                                        }
                                                         table.pushSymbol(sym);
                                                     }
                                                 }
@@ -387,7 +461,6 @@ public class LoadMethodDeclarationsAction extends SymbolAction {
                             Set<Method> methods = null;
 
                             if (!isInterfaceImplementation) {
-                                methods = MethodInspector.getInheritedMethods(clazz);
                                 Symbol<?> parent = table.findSymbol("super", ReferenceType.VARIABLE);
                                 if (parent == null) {
                                     parent = table.pushSymbol("super", ReferenceType.TYPE, new SymbolType(clazz), null);
@@ -404,7 +477,7 @@ public class LoadMethodDeclarationsAction extends SymbolAction {
                                 List<SymbolType> params = typeArg.getParameterizedTypes();
 
                                 table.pushScope(parentScope);
-                                loadMethods(methods, params, s.getType());
+                                loadInheritedMethods(clazz, params, s.getType());
                                 table.popScope(true);
                             } else {
                                 SymbolType typeArg = ASTSymbolTypeResolver.getInstance().valueOf(type);
@@ -24,6 +24,7 @@ import org.walkmod.javalang.ast.CompilationUnit;
 import org.walkmod.javalang.ast.ImportDeclaration;
 import org.walkmod.javalang.ast.Node;
 import org.walkmod.javalang.ast.PackageDeclaration;
+import org.walkmod.javalang.compiler.reflection.ClassMetadata;
 import org.walkmod.javalang.compiler.symbols.MethodSymbol;
 import org.walkmod.javalang.compiler.symbols.ReferenceType;
 import org.walkmod.javalang.compiler.symbols.Symbol;
@@ -52,10 +53,12 @@ public class LoadStaticImportsAction extends SymbolAction {
 
                     while (index != -1 && clazz == null) {
                         nameExpr = nameExpr.substring(0, index) + "$" + nameExpr.substring(index + 1);
-                        try {
-                            clazz = TypesLoaderVisitor.getClassLoader().loadClass(nameExpr);
-                        } catch (ClassNotFoundException e2) {
+                        if (TypesLoaderVisitor.getClassLoader().isLoadable(nameExpr)) {
+                            try {
+                                clazz = TypesLoaderVisitor.getClassLoader().loadClass(nameExpr);
+                            } catch (ClassNotFoundException e2) {
 
+                            }
                         }
                         index = nameExpr.lastIndexOf(".");
 
@@ -85,7 +88,8 @@ public class LoadStaticImportsAction extends SymbolAction {
                     }
                 }
 
-                Class<?>[] declaredClasses = clazz.getDeclaredClasses();
+                ClassMetadata metadata = ClassMetadata.of(clazz);
+                Class<?>[] declaredClasses = metadata.getDeclaredClasses();
 
                 for (int i = 0; i < declaredClasses.length; i++) {
                     if (!id.isAsterisk() && id.getName().getName().equals(declaredClasses[i].getSimpleName())) {
@@ -103,9 +107,9 @@ public class LoadStaticImportsAction extends SymbolAction {
                     }
                 }
 
-                Class<?>[] interfaces = clazz.getInterfaces();
+                Class<?>[] interfaces = metadata.getInterfaces();
                 for (int i = 0; i < interfaces.length; i++) {
-                    Class<?>[] nestedClasses = interfaces[i].getDeclaredClasses();
+                    Class<?>[] nestedClasses = ClassMetadata.of(interfaces[i]).getDeclaredClasses();
                     for (int j = 0; j < nestedClasses.length; j++) {
                         if (id.isAsterisk() || id.getName().getName().equals(nestedClasses[j].getSimpleName())) {
                             int modifiers = nestedClasses[j].getModifiers();
@@ -122,7 +126,7 @@ public class LoadStaticImportsAction extends SymbolAction {
                     }
                 }
 
-                Method[] methods = clazz.getDeclaredMethods();
+                Method[] methods = metadata.getDeclaredMethods();
 
                 for (Method m : methods) {
                     if (id.isAsterisk() || id.getName().getName().equals(m.getName())) {
@@ -152,7 +156,7 @@ public class LoadStaticImportsAction extends SymbolAction {
                         }
                     }
                 }
-                Field[] fields = clazz.getDeclaredFields();
+                Field[] fields = metadata.getDeclaredFields();
                 for (Field field : fields) {
                     if (id.isAsterisk() || id.getName().getName().equals(field.getName())) {
 
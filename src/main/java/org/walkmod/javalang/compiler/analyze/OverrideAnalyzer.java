@@ -6,6 +6,7 @@ import org.walkmod.javalang.ast.body.MethodDeclaration;
 import org.walkmod.javalang.ast.body.ModifierSet;
 import org.walkmod.javalang.ast.body.Parameter;
 import org.walkmod.javalang.compiler.reflection.ClassInspector;
+import org.walkmod.javalang.compiler.reflection.ClassMetadata;
 import org.walkmod.javalang.compiler.reflection.MethodInspector;
 
 import java.lang.reflect.Method;
@@ -61,7 +62,7 @@ public class OverrideAnalyzer {
 
             final Class<?> declaringClass = sdata.getMethod().getDeclaringClass();
             final Class<?> parentClass = declaringClass.getSuperclass();
-            final Class<?>[] interfaces = declaringClass.getInterfaces();
+            final Class<?>[] interfaces = ClassMetadata.of(declaringClass).getInterfaces();
 
             if (parentClass != null || interfaces.length > 0) {
                 final SymbolData[] args = getParameterSymbolData(md);
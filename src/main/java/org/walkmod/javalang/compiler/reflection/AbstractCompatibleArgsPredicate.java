@@ -72,7 +72,8 @@ public abstract class AbstractCompatibleArgsPredicate {
 
                 if (paramsCount <= numParams) {
                     if (numParams == (paramsCount - 1)) {
-                        lastVariableTypeArg = SymbolType.valueOf(genericParameterTypes[paramsCount - 1], typeMapping);
+                        lastVariableTypeArg =
+                                SymbolType.immutableValueOf(genericParameterTypes[paramsCount - 1], typeMapping);
                     } else {
                         lastVariableTypeArg = inferredMethodArgs[inferredMethodArgs.length - 1];
                     }
@@ -175,7 +175,7 @@ public abstract class AbstractCompatibleFunctionalPredicate<T> implements Previo
 
         boolean found = false;
 
-        Method[] methods = interfaceToInspect.getMethods();
+        Method[] methods = ClassMetadata.of(interfaceToInspect).getMethods();
 
         ArrayFilter<Method> filter = new ArrayFilter<Method>(methods);
 
@@ -21,6 +21,7 @@ import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.lang.reflect.WildcardType;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -100,7 +101,7 @@ public class ClassInspector {
         if (classes1.size() == 1 && classes2.size() == 1) {
             return intersectRawTypes(classes1.get(0), classes2.get(0));
         } else {
-            return list(removeSubClasses(intersection(classesAndInterfaces(classes1), classesAndInterfaces(classes2))));
+            return list(removeSubClasses(intersection(classesAndInterfaces(classes1), superTypeIds(classes2))));
         }
     }
 
@@ -138,20 +139,51 @@ public class ClassInspector {
         if (Types.isAssignable(clazz1, clazz2)) {
             return singletonList(clazz2);
         }
-        final Set<Class<?>> common = commonClasses(clazz1, clazz2);
+        final List<Class<?>> common = commonClasses(clazz1, clazz2);
         final List<Class<?>> list = list(removeSubClasses(common));
         return list.isEmpty() ? LIST_OF_OBJECT_CLASS : list;
 
     }
 
-    private static Set<Class<?>> commonClasses(Class<?> clazz1, Class<?> clazz2) {
-        return intersection(classesAndInterfaces(clazz1), classesAndInterfaces(clazz2));
+    private static List<Class<?>> commonClasses(Class<?> clazz1, Class<?> clazz2) {
+        return intersection(classesAndInterfaces(clazz1), ClassMetadata.of(clazz2).getSuperTypeIds());
     }
 
+    /**
+     * Removes the classes that are a super type of another one. The strict super types of all the
+     * classes are merged in a bit set of the {@link ClassMetadata} ids, except for arrays, which
+     * are covariant and are not in the bit sets of each other.
+     */
     private static Collection<Class<?>> removeSubClasses(Collection<Class<?>> common) {
         if (common.size() < 2) {
             return common;
         }
+        final BitSet superTypes = new BitSet();
+        boolean hasObjectSubClasses = false;
+        for (Class<?> clazz : common) {
+            if (clazz.isArray()) {
+                return removeSubArrays(common);
+            }
+            hasObjectSubClasses = hasObjectSubClasses || (clazz != Object.class && !clazz.isPrimitive());
+            final ClassMetadata metadata = ClassMetadata.of(clazz);
+            final boolean isSuperType = superTypes.get(metadata.getId());
+            superTypes.or(metadata.getSuperTypeIds());
+            if (!isSuperType) {
+                superTypes.clear(metadata.getId());
+            }
+        }
+        final List<Class<?>> reduced = new ArrayList<>(common.size());
+        for (Class<?> clazz : common) {
+            // interfaces are also assignable to Object
+            final boolean isObject = clazz == Object.class && hasObjectSubClasses;
+            if (!isObject && !superTypes.get(ClassMetadata.of(clazz).getId())) {
+                reduced.add(clazz);
+            }
+        }
+        return reduced;
+    }
+
+    private static Collection<Class<?>> removeSubArrays(Collection<Class<?>> common) {
         final Set<Class<?>> reduced = new LinkedHashSet<>(common.size());
         for (Class<?> clazz : common) {
             if (!containsSuperClass(common, clazz)) {
@@ -171,34 +203,38 @@ public class ClassInspector {
     }
 
     private static Set<Class<?>> classesAndInterfaces(Class<?> clazz) {
-        Set<Class<?>> result = new LinkedHashSet<>();
-        addSuperAndInterfaces(result, clazz);
-        return result;
+        return ClassMetadata.of(clazz).getSuperClassesAndInterfaces();
     }
 
     private static Set<Class<?>> classesAndInterfaces(List<Class<?>> classes) {
         Set<Class<?>> result = new LinkedHashSet<>();
         for (Class<?> clazz : classes) {
-            addSuperAndInterfaces(result, clazz);
+            if (clazz != null) {
+                // depth first because of raw type rule selecting first bound.
+                result.addAll(ClassMetadata.of(clazz).getSuperClassesAndInterfaces());
+            }
         }
         return result;
     }
 
-    // TODO: breadth first depth first. I guess depth first because of raw type rule selecting first bound.
-    private static void addSuperAndInterfaces(Set<Class<?>> classes, Class<?> clazz) {
-        if (clazz != null) {
-            classes.add(clazz);
-            addSuperAndInterfaces(classes, clazz.getSuperclass());
-            for (Class<?> aClass : clazz.getInterfaces()) {
-                addSuperAndInterfaces(classes, aClass);
+    private static BitSet superTypeIds(List<Class<?>> classes) {
+        final BitSet result = new BitSet();
+        for (Class<?> clazz : classes) {
+            if (clazz != null) {
+                result.or(ClassMetadata.of(clazz).getSuperTypeIds());
             }
         }
+        return result;
     }
 
-    private static <E> Set<E> intersection(Set<E> set1, Set<E> set2) {
-        final Set<E> set = new LinkedHashSet<>(set1);
-        set.retainAll(set2);
-        return set;
+    private static List<Class<?>> intersection(Set<Class<?>> classes, BitSet superTypeIds) {
+        final List<Class<?>> result = new ArrayList<>();
+        for (Class<?> clazz : classes) {
+            if (superTypeIds.get(ClassMetadata.of(clazz).getId())) {
+                result.add(clazz);
+            }
+        }
+        return result;
     }
 
     /**
@@ -238,7 +274,7 @@ public class ClassInspector {
         if (!found) {
             result = findClassMember(pkg, name, clazz.getSuperclass());
             if (result == null) {
-                Class<?>[] interfaces = clazz.getInterfaces();
+                Class<?>[] interfaces = ClassMetadata.of(clazz).getInterfaces();
                 for (int i = 0; i < interfaces.length && !found; i++) {
                     result = findClassMember(pkg, name, interfaces[i]);
                     found = result != null;
@@ -253,7 +289,7 @@ public class ClassInspector {
             return null;
         }
 
-        Class<?>[] innerClasses = clazz.getDeclaredClasses();
+        Class<?>[] innerClasses = ClassMetadata.of(clazz).getDeclaredClasses();
         Class<?> result = null;
         boolean found = false;
         for (int i = 0; i < innerClasses.length && !found; i++) {
@@ -293,14 +329,14 @@ public class ClassInspector {
         if (clazz == null || clazz.equals(Object.class)) {
             return result;
         }
-        Class<?>[] declClasses = clazz.getDeclaredClasses();
+        Class<?>[] declClasses = ClassMetadata.of(clazz).getDeclaredClasses();
         for (int i = 0; i < declClasses.length; i++) {
             if (!Modifier.isPrivate(declClasses[i].getModifiers())) {
                 result.add(declClasses[i]);
             }
         }
         result.addAll(getNonPrivateClassMembers(clazz.getSuperclass()));
-        Class<?>[] interfaces = clazz.getInterfaces();
+        Class<?>[] interfaces = ClassMetadata.of(clazz).getInterfaces();
         for (int i = 0; i < interfaces.length; i++) {
             result.addAll(getNonPrivateClassMembers(interfaces[i]));
         }
@@ -321,14 +357,15 @@ public class ClassInspector {
 
         } else if (clazz instanceof Class<?>) {
             Class<?> type = (Class<?>) clazz;
-            if (type.getTypeParameters().length > 0) {
+            if (ClassMetadata.of(type).getTypeParameters().length > 0) {
                 result.add(type);
             }
             classToAnalyze = type;
         }
         if (classToAnalyze != null) {
-            result.addAll(getEquivalentParametrizableClasses(classToAnalyze.getGenericSuperclass()));
-            Type[] interfaces = classToAnalyze.getGenericInterfaces();
+            ClassMetadata metadata = ClassMetadata.of(classToAnalyze);
+            result.addAll(getEquivalentParametrizableClasses(metadata.getGenericSuperclass()));
+            Type[] interfaces = metadata.getGenericInterfaces();
             for (int i = 0; i < interfaces.length; i++) {
                 result.addAll(getEquivalentParametrizableClasses(interfaces[i]));
             }
@@ -340,7 +377,7 @@ public class ClassInspector {
     public static boolean isGeneric(Type type) {
         if (type instanceof Class<?>) {
             Class<?> clazz = (Class<?>) type;
-            Type[] params = clazz.getTypeParameters();
+            Type[] params = ClassMetadata.of(clazz).getTypeParameters();
             boolean isGeneric = false;
             for (int i = 0; i < params.length && !isGeneric; i++) {
                 isGeneric = isGeneric(params[i]);
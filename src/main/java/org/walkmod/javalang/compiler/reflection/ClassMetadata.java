@@ -0,0 +1,297 @@
+/*
+ * Copyright (C) 2015 Raquel Pau and Albert Coroleu.
+ *
+ * Walkmod is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Walkmod is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Walkmod. If
+ * not, see <http://www.gnu.org/licenses/>.
+ */
+package org.walkmod.javalang.compiler.reflection;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.walkmod.javalang.compiler.types.Types;
+
+/**
+ * Reflection data of a class that is read once and shared by the inspectors. Each call to
+ * {@link Class#getDeclaredMethods()} and the like returns a new copy of the array, so the arrays
+ * are loaded on demand and kept here. The metadata is attached to the class through a
+ * {@link ClassValue}, so it is released together with the class and its class loader.
+ * <p>
+ * The super classes and interfaces of a class are also kept as a bit set of dense ids, so the
+ * hierarchy of two classes can be intersected or compared word by word. A class gets its id when
+ * a bit set first needs it, and the id is reused after the class is unloaded: the subclasses keep
+ * their super classes loaded, so no live bit set refers to it anymore.
+ * <p>
+ * The returned arrays are shared and must not be modified.
+ */
+public final class ClassMetadata {
+
+    private static final ClassValue<ClassMetadata> METADATA = new ClassValue<ClassMetadata>() {
+        @Override
+        protected ClassMetadata computeValue(Class<?> type) {
+            return new ClassMetadata(type);
+        }
+    };
+
+    private static final Type NO_TYPE = new Type() {
+    };
+
+    /* ids in use, guarded by itself */
+    private static final BitSet IDS = new BitSet();
+
+    /* ids of the unloaded classes */
+    private static final ReferenceQueue<ClassMetadata> RELEASED_IDS = new ReferenceQueue<ClassMetadata>();
+
+    /* keeps the references of the assigned ids until they are enqueued, guarded by IDS */
+    private static final Set<IdReference> ID_REFERENCES = new HashSet<IdReference>();
+
+    private final Class<?> clazz;
+
+    private volatile int id = -1;
+
+    private final int basicTypeOrder;
+
+    private final Class<?> wrapperClass;
+
+    private final boolean wrapper;
+
+    private volatile Method[] declaredMethods;
+
+    private volatile Method[] methods;
+
+    private volatile Field[] declaredFields;
+
+    private volatile Class<?>[] declaredClasses;
+
+    private volatile Class<?>[] interfaces;
+
+    private volatile Type[] genericInterfaces;
+
+    private volatile Type genericSuperclass;
+
+    private volatile TypeVariable<?>[] typeParameters;
+
+    private volatile Set<Class<?>> superClassesAndInterfaces;
+
+    private volatile BitSet superTypeIds;
+
+    private volatile DeclaredMethodTable declaredMethodTable;
+
+    private ClassMetadata(Class<?> clazz) {
+        this.clazz = clazz;
+        String name = clazz.getName();
+        Integer order = Types.basicTypeEvaluationOrder(name);
+        this.basicTypeOrder = order == null ? -1 : order;
+        this.wrapperClass = clazz.isPrimitive() ? Types.getWrapperClass(name) : null;
+        this.wrapper = Types.getWrapperClasses().containsKey(name);
+    }
+
+    public static ClassMetadata of(Class<?> clazz) {
+        return METADATA.get(clazz);
+    }
+
+    /**
+     * @return the id of the class in the bit sets of {@link #getSuperTypeIds()}, which is assigned
+     *         the first time that it is requested.
+     */
+    public int getId() {
+        int result = id;
+        if (result < 0) {
+            synchronized (IDS) {
+                result = id;
+                if (result < 0) {
+                    result = nextId();
+                    ID_REFERENCES.add(new IdReference(this, result));
+                    id = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the lowest id that is not in use, after releasing the ids of the unloaded classes.
+     */
+    private static int nextId() {
+        Reference<? extends ClassMetadata> released = RELEASED_IDS.poll();
+        while (released != null) {
+            IdReference reference = (IdReference) released;
+            ID_REFERENCES.remove(reference);
+            IDS.clear(reference.id);
+            released = RELEASED_IDS.poll();
+        }
+        int result = IDS.nextClearBit(0);
+        IDS.set(result);
+        return result;
+    }
+
+    private static final class IdReference extends PhantomReference<ClassMetadata> {
+
+        private final int id;
+
+        IdReference(ClassMetadata metadata, int id) {
+            super(metadata, RELEASED_IDS);
+            this.id = id;
+        }
+    }
+
+    /**
+     * @return the position of the class in the primitive compatibility matrix of {@link Types} or
+     *         -1 if it is not a primitive, a wrapper, String or Object.
+     */
+    public int getBasicTypeOrder() {
+        return basicTypeOrder;
+    }
+
+    /**
+     * @return the wrapper class if the class is primitive, null otherwise.
+     */
+    public Class<?> getWrapperClass() {
+        return wrapperClass;
+    }
+
+    public boolean isWrapper() {
+        return wrapper;
+    }
+
+    public Method[] getDeclaredMethods() {
+        Method[] result = declaredMethods;
+        if (result == null) {
+            result = clazz.getDeclaredMethods();
+            declaredMethods = result;
+        }
+        return result;
+    }
+
+    DeclaredMethodTable getDeclaredMethodTable() {
+        DeclaredMethodTable result = declaredMethodTable;
+        if (result == null) {
+            result = new DeclaredMethodTable(getDeclaredMethods());
+            declaredMethodTable = result;
+        }
+        return result;
+    }
+
+    public Method[] getMethods() {
+        Method[] result = methods;
+        if (result == null) {
+            result = clazz.getMethods();
+            methods = result;
+        }
+        return result;
+    }
+
+    public Field[] getDeclaredFields() {
+        Field[] result = declaredFields;
+        if (result == null) {
+            result = clazz.getDeclaredFields();
+            declaredFields = result;
+        }
+        return result;
+    }
+
+    public Class<?>[] getDeclaredClasses() {
+        Class<?>[] result = declaredClasses;
+        if (result == null) {
+            result = clazz.getDeclaredClasses();
+            declaredClasses = result;
+        }
+        return result;
+    }
+
+    public Class<?>[] getInterfaces() {
+        Class<?>[] result = interfaces;
+        if (result == null) {
+            result = clazz.getInterfaces();
+            interfaces = result;
+        }
+        return result;
+    }
+
+    public Type[] getGenericInterfaces() {
+        Type[] result = genericInterfaces;
+        if (result == null) {
+            result = clazz.getGenericInterfaces();
+            genericInterfaces = result;
+        }
+        return result;
+    }
+
+    public Type getGenericSuperclass() {
+        Type result = genericSuperclass;
+        if (result == null) {
+            result = clazz.getGenericSuperclass();
+            genericSuperclass = result == null ? NO_TYPE : result;
+        }
+        return result == NO_TYPE ? null : result;
+    }
+
+    public TypeVariable<?>[] getTypeParameters() {
+        TypeVariable<?>[] result = typeParameters;
+        if (result == null) {
+            result = clazz.getTypeParameters();
+            typeParameters = result;
+        }
+        return result;
+    }
+
+    /**
+     * @return the class, its super classes and all the interfaces they implement, depth first.
+     */
+    public Set<Class<?>> getSuperClassesAndInterfaces() {
+        Set<Class<?>> result = superClassesAndInterfaces;
+        if (result == null) {
+            Set<Class<?>> aux = new LinkedHashSet<Class<?>>();
+            aux.add(clazz);
+            Class<?> superClass = clazz.getSuperclass();
+            if (superClass != null) {
+                aux.addAll(of(superClass).getSuperClassesAndInterfaces());
+            }
+            for (Class<?> interf : getInterfaces()) {
+                aux.addAll(of(interf).getSuperClassesAndInterfaces());
+            }
+            result = Collections.unmodifiableSet(aux);
+            superClassesAndInterfaces = result;
+        }
+        return result;
+    }
+
+    /**
+     * @return the ids of the classes of {@link #getSuperClassesAndInterfaces()}. It is shared and
+     *         must not be modified.
+     */
+    BitSet getSuperTypeIds() {
+        BitSet result = superTypeIds;
+        if (result == null) {
+            result = new BitSet();
+            result.set(getId());
+            Class<?> superClass = clazz.getSuperclass();
+            if (superClass != null) {
+                result.or(of(superClass).getSuperTypeIds());
+            }
+            for (Class<?> interf : getInterfaces()) {
+                result.or(of(interf).getSuperTypeIds());
+            }
+            superTypeIds = result;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2015 Raquel Pau and Albert Coroleu.
+ *
+ * Walkmod is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Walkmod is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Walkmod. If
+ * not, see <http://www.gnu.org/licenses/>.
+ */
+package org.walkmod.javalang.compiler.reflection;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Declared methods of a class grouped by name. The methods of a group that accept each number of
+ * arguments are computed once, in the order of {@link ExecutableSorter}. This order only depends
+ * on the arguments of the invocation when two of those methods have the same number of
+ * parameters, so the other segments are sorted once too.
+ */
+final class DeclaredMethodTable {
+
+    private final Map<String, Group> groups;
+
+    DeclaredMethodTable(Method[] declaredMethods) {
+        Map<String, List<Method>> methodsByName = new LinkedHashMap<String, List<Method>>();
+        for (Method method : declaredMethods) {
+            List<Method> methods = methodsByName.get(method.getName());
+            if (methods == null) {
+                methods = new ArrayList<Method>(2);
+                methodsByName.put(method.getName(), methods);
+            }
+            methods.add(method);
+        }
+        groups = new HashMap<String, Group>(methodsByName.size() * 2);
+        for (Map.Entry<String, List<Method>> entry : methodsByName.entrySet()) {
+            groups.put(entry.getKey(), new Group(entry.getValue()));
+        }
+    }
+
+    /**
+     * @param name
+     *            the method name
+     * @param arity
+     *            the number of arguments of the invocation or -1 if it is unknown
+     * @return the declared methods with this name that accept this number of arguments or null if
+     *         there are none
+     */
+    Segment getSegment(String name, int arity) {
+        Group group = groups.get(name);
+        if (group == null) {
+            return null;
+        }
+        return group.getSegment(arity);
+    }
+
+    /**
+     * Methods of a group that accept a number of arguments. If they do not depend on the arguments
+     * of the invocation, they are sorted. Otherwise, they are kept in their declaration order,
+     * which is the input of {@link ExecutableSorter}.
+     */
+    static final class Segment {
+
+        final Method[] methods;
+
+        final boolean argsDependent;
+
+        Segment(List<Method> accepted) {
+            Set<Integer> arities = new HashSet<Integer>();
+            for (Method method : accepted) {
+                arities.add(method.getParameterTypes().length);
+            }
+            Method[] aux = accepted.toArray(new Method[accepted.size()]);
+            argsDependent = arities.size() < aux.length;
+            if (!argsDependent && aux.length > 1) {
+                // the methods are only compared by their number of parameters
+                List<Method> sorted = new ExecutableSorter().sort(aux, null);
+                aux = sorted.toArray(new Method[sorted.size()]);
+            }
+            methods = aux;
+        }
+    }
+
+    private static final class Group {
+
+        private final Segment all;
+
+        /* segments by number of arguments, up to the greatest number of parameters */
+        private final Segment[] byArity;
+
+        /* segment of the greater numbers of arguments, that only the varargs methods accept */
+        private final Segment varArgs;
+
+        Group(List<Method> declared) {
+            int maxArity = 0;
+            for (Method method : declared) {
+                maxArity = Math.max(maxArity, method.getParameterTypes().length);
+            }
+            all = new Segment(declared);
+            byArity = new Segment[maxArity + 1];
+            for (int arity = 0; arity <= maxArity; arity++) {
+                byArity[arity] = accepting(declared, arity);
+            }
+            varArgs = accepting(declared, maxArity + 1);
+        }
+
+        private static Segment accepting(List<Method> declared, int arity) {
+            List<Method> accepted = new ArrayList<Method>(declared.size());
+            for (Method method : declared) {
+                int params = method.getParameterTypes().length;
+                if (params == arity || (method.isVarArgs() && arity >= params - 1)) {
+                    accepted.add(method);
+                }
+            }
+            return accepted.isEmpty() ? null : new Segment(accepted);
+        }
+
+        Segment getSegment(int arity) {
+            if (arity < 0) {
+                return all;
+            }
+            if (arity < byArity.length) {
+                return byArity[arity];
+            }
+            return varArgs;
+        }
+    }
+}
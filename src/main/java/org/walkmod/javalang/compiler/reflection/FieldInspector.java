@@ -35,7 +35,7 @@ public class FieldInspector {
         if (clazz == null || clazz.equals(Object.class)) {
             return result;
         }
-        Field[] fields = clazz.getDeclaredFields();
+        Field[] fields = ClassMetadata.of(clazz).getDeclaredFields();
 
         for (int i = 0; i < fields.length; i++) {
             if (!Modifier.isPrivate(fields[i].getModifiers())) {
@@ -43,7 +43,7 @@ public class FieldInspector {
             }
         }
         result.addAll(getNonPrivateFields(clazz.getSuperclass()));
-        Class<?>[] interfaces = clazz.getInterfaces();
+        Class<?>[] interfaces = ClassMetadata.of(clazz).getInterfaces();
         for (int i = 0; i < interfaces.length; i++) {
             result.addAll(getNonPrivateFields(interfaces[i]));
         }
@@ -151,7 +151,7 @@ public class FieldInspector {
             }
         }
         // Direct superinterfaces, recursively
-        Class<?>[] interfaces = clazz.getInterfaces();
+        Class<?>[] interfaces = ClassMetadata.of(clazz).getInterfaces();
         for (int i = 0; i < interfaces.length; i++) {
             Class<?> c = interfaces[i];
             if ((res = getField0(pkg, c, name)) != null) {
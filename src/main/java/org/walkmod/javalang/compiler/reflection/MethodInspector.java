@@ -123,8 +123,51 @@ public class MethodInspector {
     public static SymbolType findMethodType(Class<?> clazz, Class<?>[] args, ArrayFilter<Method> filter,
             CompositeBuilder<Method> builder, Map<String, SymbolType> typeMapping, boolean throwException)
             throws Exception {
+        List<Predicate<Method>> preds = filter.getPredicates();
+        if (preds == null || preds.isEmpty() || !(preds.get(0) instanceof MethodsByNamePredicate)) {
+            return findMethodTypeInHierarchy(clazz, args, filter, builder, typeMapping, throwException);
+        }
+        // only the methods with the same name and a compatible number of parameters can pass the filter
+        String name = ((MethodsByNamePredicate) preds.get(0)).getName();
+        int arity = getArity(preds);
+        SymbolType result = null;
+        filter.setElements(MethodTable.of(clazz).getCandidates(name, arity, args));
+        Method aux = filter.filterOne();
+        if (aux != null) {
+            if (builder != null) {
+                builder.build(aux);
+            }
+            result = SymbolType.valueOf(aux, typeMapping);
+        }
+        if (result == null && throwException) {
+            throw new NoSuchMethodException("The method  cannot be found");
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of arguments required by the {@link CompatibleArgsPredicate} of the
+     *         filter, or -1 if it is not reached right after the name and invokable predicates.
+     */
+    private static int getArity(List<Predicate<Method>> preds) {
+        for (int i = 1; i < preds.size(); i++) {
+            Predicate<Method> pred = preds.get(i);
+            if (pred instanceof CompatibleArgsPredicate) {
+                SymbolType[] typeArgs = ((CompatibleArgsPredicate<?>) pred).getTypeArgs();
+                return typeArgs == null ? 0 : typeArgs.length;
+            }
+            if (!(pred instanceof InvokableMethodsPredicate)) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static SymbolType findMethodTypeInHierarchy(Class<?> clazz, Class<?>[] args,
+            ArrayFilter<Method> filter, CompositeBuilder<Method> builder, Map<String, SymbolType> typeMapping,
+            boolean throwException) throws Exception {
         ExecutableSorter sorter = new ExecutableSorter();
-        List<Method> auxList = sorter.sort(clazz.getDeclaredMethods(), args);
+        List<Method> auxList = sorter.sort(ClassMetadata.of(clazz).getDeclaredMethods(), args);
         Method[] auxArray = new Method[auxList.size()];
         auxList.toArray(auxArray);
         filter.setElements(auxArray);
@@ -144,33 +187,35 @@ public class MethodInspector {
 
             Class<?> superClass = clazz.getSuperclass();
             if (superClass != null) {
-                result = findMethodType(superClass, args, filter, builder, typeMapping, false);
+                result = findMethodTypeInHierarchy(superClass, args, filter, builder, typeMapping, false);
             }
 
             if (result == null) {
-                Type[] types = clazz.getGenericInterfaces();
+                Type[] types = ClassMetadata.of(clazz).getGenericInterfaces();
                 if (types.length > 0) {
 
                     for (int i = 0; i < types.length && result == null; i++) {
 
-                        Class<?> type = SymbolType.valueOf(types[i], typeMapping).getClazz();
+                        Class<?> type = SymbolType.immutableValueOf(types[i], typeMapping).getClazz();
 
-                        result = findMethodType(type, args, filter, builder, typeMapping, false);
+                        result = findMethodTypeInHierarchy(type, args, filter, builder, typeMapping, false);
                     }
 
                 }
                 if (result == null && clazz.isInterface()) {
-                    result = findMethodType(Object.class, args, filter, builder, typeMapping, false);
+                    result = findMethodTypeInHierarchy(Object.class, args, filter, builder, typeMapping, false);
                 }
             }
             if (result == null) {
                 if (clazz.isMemberClass()) {
 
-                    result = findMethodType(clazz.getDeclaringClass(), args, filter, builder, typeMapping, false);
+                    result = findMethodTypeInHierarchy(clazz.getDeclaringClass(), args, filter, builder, typeMapping,
+                            false);
 
                 } else if (clazz.isAnonymousClass()) {
 
-                    result = findMethodType(clazz.getEnclosingClass(), args, filter, builder, typeMapping, false);
+                    result = findMethodTypeInHierarchy(clazz.getEnclosingClass(), args, filter, builder, typeMapping,
+                            false);
                 }
             }
         }
@@ -183,7 +228,7 @@ public class MethodInspector {
     public static Set<Method> getInhertitedDefaultMethods(Class<?> interf, Class<?> clazz) {
         Set<Method> result = new HashSet<Method>();
         if (!clazz.isInterface()) {
-            Method[] declMethods = clazz.getDeclaredMethods();
+            Method[] declMethods = ClassMetadata.of(clazz).getDeclaredMethods();
 
             Set<Method> methods = getVisibleDefaultMethods(interf, clazz);
             Iterator<Method> it = methods.iterator();
@@ -221,7 +266,7 @@ public class MethodInspector {
         if (clazz == null || clazz.equals(Object.class)) {
             return result;
         }
-        Method[] declMethods = clazz.getDeclaredMethods();
+        Method[] declMethods = ClassMetadata.of(clazz).getDeclaredMethods();
         for (int i = 0; i < declMethods.length; i++) {
             int modifiers = declMethods[i].getModifiers();
 
@@ -247,7 +292,7 @@ public class MethodInspector {
             }
         }
         if (clazz.isInterface()) {
-            Class<?>[] interfaces = clazz.getInterfaces();
+            Class<?>[] interfaces = ClassMetadata.of(clazz).getInterfaces();
             for (int i = 0; i < interfaces.length; i++) {
                 Set<Method> auxSet = getVisibleDefaultMethods(interfaces[i], invocationClass);
                 result.addAll(auxSet);
@@ -268,7 +313,7 @@ public class MethodInspector {
             return null;
         }
 
-        Method[] declMethods = clazz.getDeclaredMethods();
+        Method[] declMethods = ClassMetadata.of(clazz).getDeclaredMethods();
         for (int i = 0; i < declMethods.length; i++) {
             int modifiers = declMethods[i].getModifiers();
             /*
@@ -284,7 +329,7 @@ public class MethodInspector {
         }
         Method result = getLambdaMethod(clazz.getSuperclass(), paramsSize);
         if (isAbstract) {
-            Class<?>[] interfaces = clazz.getInterfaces();
+            Class<?>[] interfaces = ClassMetadata.of(clazz).getInterfaces();
             for (int i = 0; i < interfaces.length && result == null; i++) {
                 result = getLambdaMethod(interfaces[i], paramsSize);
             }
@@ -301,7 +346,7 @@ public class MethodInspector {
         if (clazz == null || clazz.equals(Object.class)) {
             return result;
         }
-        Method[] declMethods = clazz.getDeclaredMethods();
+        Method[] declMethods = ClassMetadata.of(clazz).getDeclaredMethods();
         for (int i = 0; i < declMethods.length; i++) {
             boolean isVisible = clazz.getName().equals(invocationClass.getName());
             int modifiers = declMethods[i].getModifiers();
@@ -322,7 +367,7 @@ public class MethodInspector {
             }
         }
         if (clazz.isInterface()) {
-            Class<?>[] interfaces = clazz.getInterfaces();
+            Class<?>[] interfaces = ClassMetadata.of(clazz).getInterfaces();
             for (int i = 0; i < interfaces.length; i++) {
                 Set<Method> auxSet = getVisibleMethods(interfaces[i], invocationClass);
                 result.addAll(auxSet);
@@ -370,7 +415,7 @@ public class MethodInspector {
         if (clazz == null || clazz.equals(Object.class)) {
             return result;
         }
-        Method[] declMethods = clazz.getDeclaredMethods();
+        Method[] declMethods = ClassMetadata.of(clazz).getDeclaredMethods();
         for (int i = 0; i < declMethods.length; i++) {
             if (!Modifier.isPrivate(declMethods[i].getModifiers())
                     && !Modifier.isAbstract(declMethods[i].getModifiers()) && !declMethods[i].isBridge()
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2015 Raquel Pau and Albert Coroleu.
+ *
+ * Walkmod is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Walkmod is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Walkmod. If
+ * not, see <http://www.gnu.org/licenses/>.
+ */
+package org.walkmod.javalang.compiler.reflection;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.walkmod.javalang.compiler.symbols.SymbolType;
+import org.walkmod.javalang.compiler.types.AnalysisContext;
+import org.walkmod.javalang.exceptions.InvalidTypeException;
+
+/**
+ * Methods of a class and of the classes where {@link MethodInspector} looks for a method of the
+ * class, merged by name in the order they are visited: the class, its super classes, its
+ * interfaces, Object for interfaces and the enclosing classes. Like the recursive search, a class
+ * that is reached twice is visited twice, and the generic interfaces are resolved with
+ * {@link SymbolType#immutableValueOf(Type, java.util.Map)}. The interfaces are loaded with the
+ * classloader of the analysis, so the tables are kept in the {@link AnalysisContext}.
+ * <p>
+ * The candidates of each name and number of arguments are merged once. The methods of a class
+ * that depend on the arguments of the invocation are the only ones sorted in each call.
+ */
+public final class MethodTable {
+
+    private static final Method[] NONE = new Method[0];
+
+    private static final Candidates NO_CANDIDATES = new Candidates(new ArrayList<DeclaredMethodTable.Segment>());
+
+    private final List<Class<?>> lookupOrder;
+
+    private final ConcurrentMap<String, ConcurrentMap<Integer, Candidates>> candidates =
+            new ConcurrentHashMap<String, ConcurrentMap<Integer, Candidates>>();
+
+    MethodTable(Class<?> clazz) throws InvalidTypeException {
+        List<Class<?>> classes = new ArrayList<Class<?>>();
+        addLookupOrder(clazz, classes);
+        lookupOrder = Collections.unmodifiableList(classes);
+    }
+
+    /**
+     * @param clazz
+     *            the class where the method is looked up
+     * @return the table of the class in the current analysis context
+     * @throws InvalidTypeException
+     *             if a generic interface can not be resolved
+     */
+    static MethodTable of(Class<?> clazz) throws InvalidTypeException {
+        AnalysisContext context = AnalysisContext.getCurrent();
+        MethodTable result = context.getMethodTable(clazz);
+        if (result == null) {
+            result = context.putMethodTable(clazz, new MethodTable(clazz));
+        }
+        return result;
+    }
+
+    private static void addLookupOrder(Class<?> clazz, List<Class<?>> classes) throws InvalidTypeException {
+        classes.add(clazz);
+        Class<?> superClass = clazz.getSuperclass();
+        if (superClass != null) {
+            addLookupOrder(superClass, classes);
+        }
+        for (Type type : ClassMetadata.of(clazz).getGenericInterfaces()) {
+            // the class of an interface does not depend on the mapping of its type arguments
+            Class<?> interf = SymbolType.immutableValueOf(type, new HashMap<String, SymbolType>()).getClazz();
+            addLookupOrder(interf, classes);
+        }
+        if (clazz.isInterface()) {
+            addLookupOrder(Object.class, classes);
+        }
+        if (clazz.isMemberClass()) {
+            addLookupOrder(clazz.getDeclaringClass(), classes);
+        } else if (clazz.isAnonymousClass()) {
+            addLookupOrder(clazz.getEnclosingClass(), classes);
+        }
+    }
+
+    /**
+     * @return the classes in the order they are visited to find a method of the class, with the
+     *         classes that are reached more than once repeated.
+     */
+    List<Class<?>> getLookupOrder() {
+        return lookupOrder;
+    }
+
+    /**
+     * @param name
+     *            the method name
+     * @param arity
+     *            the number of arguments of the invocation or -1 if it is unknown
+     * @param args
+     *            the classes of the arguments, used to sort the methods of a class with the same
+     *            number of parameters
+     * @return the methods with this name that accept this number of arguments, class by class in
+     *         the lookup order and from the most specific one in each class. The returned array
+     *         must not be modified.
+     */
+    Method[] getCandidates(String name, int arity, Class<?>[] args) {
+        ConcurrentMap<Integer, Candidates> byArity = candidates.get(name);
+        if (byArity == null) {
+            byArity = new ConcurrentHashMap<Integer, Candidates>();
+            ConcurrentMap<Integer, Candidates> previous = candidates.putIfAbsent(name, byArity);
+            if (previous != null) {
+                byArity = previous;
+            }
+        }
+        Candidates result = byArity.get(arity);
+        if (result == null) {
+            result = merge(name, arity);
+            byArity.putIfAbsent(arity, result);
+        }
+        return result.sort(args);
+    }
+
+    private Candidates merge(String name, int arity) {
+        List<DeclaredMethodTable.Segment> segments = new ArrayList<DeclaredMethodTable.Segment>();
+        for (Class<?> clazz : lookupOrder) {
+            DeclaredMethodTable.Segment segment =
+                    ClassMetadata.of(clazz).getDeclaredMethodTable().getSegment(name, arity);
+            if (segment != null) {
+                segments.add(segment);
+            }
+        }
+        return segments.isEmpty() ? NO_CANDIDATES : new Candidates(segments);
+    }
+
+    /**
+     * Merged segments of a name and a number of arguments, with the bounds of the segments that
+     * are sorted with the arguments of each invocation.
+     */
+    private static final class Candidates {
+
+        private final Method[] methods;
+
+        /* start and end of each segment that depends on the arguments */
+        private final int[] argsDependent;
+
+        Candidates(List<DeclaredMethodTable.Segment> segments) {
+            int size = 0;
+            int dependent = 0;
+            for (DeclaredMethodTable.Segment segment : segments) {
+                size += segment.methods.length;
+                if (segment.argsDependent) {
+                    dependent++;
+                }
+            }
+            methods = size == 0 ? NONE : new Method[size];
+            argsDependent = new int[dependent * 2];
+            int pos = 0;
+            int bound = 0;
+            for (DeclaredMethodTable.Segment segment : segments) {
+                System.arraycopy(segment.methods, 0, methods, pos, segment.methods.length);
+                if (segment.argsDependent) {
+                    argsDependent[bound++] = pos;
+                    argsDependent[bound++] = pos + segment.methods.length;
+                }
+                pos += segment.methods.length;
+            }
+        }
+
+        Method[] sort(Class<?>[] args) {
+            if (argsDependent.length == 0) {
+                return methods;
+            }
+            Method[] result = methods.clone();
+            for (int i = 0; i < argsDependent.length; i += 2) {
+                int start = argsDependent[i];
+                List<Method> sorted =
+                        new ExecutableSorter().sort(Arrays.copyOfRange(methods, start, argsDependent[i + 1]), args);
+                for (Method method : sorted) {
+                    result[start++] = method;
+                }
+            }
+            return result;
+        }
+    }
+}
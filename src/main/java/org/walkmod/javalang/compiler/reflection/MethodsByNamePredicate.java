@@ -26,6 +26,10 @@ public class MethodsByNamePredicate implements Predicate<Method> {
         this.name = name;
     }
 
+    public String getName() {
+        return name;
+    }
+
     @Override
     public boolean filter(Method elem) {
         return elem.getName().equals(name);
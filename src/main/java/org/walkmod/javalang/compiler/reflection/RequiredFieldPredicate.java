@@ -42,7 +42,7 @@ public class RequiredFieldPredicate implements Predicate<Class<?>> {
             fieldCompatible = true;
         } catch (NoSuchFieldException e) {
             // searching in all fields
-            Field[] fields = candidate.getDeclaredFields();
+            Field[] fields = ClassMetadata.of(candidate).getDeclaredFields();
             String fieldName = requiredField.getField();
             fieldCompatible = false;
 
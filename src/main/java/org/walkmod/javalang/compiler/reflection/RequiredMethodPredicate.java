@@ -49,9 +49,10 @@ public class RequiredMethodPredicate<A extends Map<String, Object>> implements P
         List<Method> methods = new LinkedList<Method>();
 
         boolean returnTypeCompatible = false;
-        methods.addAll(Arrays.asList(candidate.getDeclaredMethods()));
+        ClassMetadata metadata = ClassMetadata.of(candidate);
+        methods.addAll(Arrays.asList(metadata.getDeclaredMethods()));
 
-        methods.addAll(Arrays.asList(candidate.getMethods()));
+        methods.addAll(Arrays.asList(metadata.getMethods()));
         Iterator<Method> it = methods.iterator();
 
         while (it.hasNext() && !returnTypeCompatible) {
@@ -39,7 +39,8 @@ public class ASTSymbolTypeResolver extends GenericVisitorAdapter<SymbolType, Lis
 
     private SymbolTable symbolTable = null;
 
-    private static ASTSymbolTypeResolver instance = null;
+    /* one per thread, because it keeps the symbol table of the analysis in progress */
+    private static final ThreadLocal<ASTSymbolTypeResolver> instance = new ThreadLocal<ASTSymbolTypeResolver>();
 
     private Map<String, SymbolType> mapping = null;
 
@@ -53,10 +54,12 @@ public class ASTSymbolTypeResolver extends GenericVisitorAdapter<SymbolType, Lis
     }
 
     public static ASTSymbolTypeResolver getInstance() {
-        if (instance == null) {
-            instance = new ASTSymbolTypeResolver();
+        ASTSymbolTypeResolver resolver = instance.get();
+        if (resolver == null) {
+            resolver = new ASTSymbolTypeResolver();
+            instance.set(resolver);
         }
-        return instance;
+        return resolver;
     }
 
     public void setSymbolTable(SymbolTable symbolTable) {
@@ -126,7 +129,7 @@ public class ASTSymbolTypeResolver extends GenericVisitorAdapter<SymbolType, Lis
                 result = symbolTable.getType(name, org.walkmod.javalang.compiler.symbols.ReferenceType.TYPE,
                         org.walkmod.javalang.compiler.symbols.ReferenceType.TYPE_PARAM);
                 if (result != null) {
-                    result = result.clone();
+                    result = result.cloneIfMutable();
                 } else {
                     SymbolType thisType =
                             symbolTable.getType("this", org.walkmod.javalang.compiler.symbols.ReferenceType.VARIABLE);
@@ -248,11 +251,11 @@ public class ASTSymbolTypeResolver extends GenericVisitorAdapter<SymbolType, Lis
                 typeArgs.add(aux);
             }
             if (!typeArgs.isEmpty()) {
-                result.setParameterizedTypes(typeArgs);
+                result = withParameterizedTypes(result, typeArgs);
             }
         } else {
             if (result != null) {
-                result.setParameterizedTypes(null);
+                result = withParameterizedTypes(result, null);
             }
         }
         if (mapping != null && result != null) {
@@ -266,6 +269,18 @@ public class ASTSymbolTypeResolver extends GenericVisitorAdapter<SymbolType, Lis
         return result;
     }
 
+    /**
+     * Sets the type arguments of a resolved type. The immutable types of the symbol table are
+     * shared, so the type arguments are set into a derived type.
+     */
+    private static SymbolType withParameterizedTypes(SymbolType type, List<SymbolType> typeArgs) {
+        if (type.isFrozen()) {
+            return type.withParameterizedTypes(typeArgs);
+        }
+        type.setParameterizedTypes(typeArgs);
+        return type;
+    }
+
     @Override
     public SymbolType visit(VoidType n, List<TypeParameter> arg) {
         return new SymbolType(Void.class.getName());
@@ -311,7 +326,10 @@ public class ASTSymbolTypeResolver extends GenericVisitorAdapter<SymbolType, Lis
         if (containerType instanceof PrimitiveType) {
             result = SymbolType.classValueOf(containerType.accept(this, arg).getName(), n.getArrayCount());
         } else if (containerType instanceof ClassOrInterfaceType) {
-            result = SymbolType.cloneAsArrayOrNull(containerType.accept(this, arg), n.getArrayCount());
+            SymbolType componentType = containerType.accept(this, arg);
+            if (componentType != null) {
+                result = componentType.withArrayCount(n.getArrayCount());
+            }
         }
         return result;
     }
@@ -0,0 +1,30 @@
+/*
+ * Copyright (C) 2015 Raquel Pau and Albert Coroleu.
+ *
+ * Walkmod is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Walkmod is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Walkmod. If
+ * not, see <http://www.gnu.org/licenses/>.
+ */
+package org.walkmod.javalang.compiler.symbols;
+
+/**
+ * Results of {@link SymbolType#isCompatible(SymbolType)} keyed by the fingerprints of both types,
+ * or by both types when they are immutable.
+ */
+public class CompatibilityCache extends FingerprintCache<Boolean> {
+
+    public CompatibilityCache() {
+        super();
+    }
+
+    public CompatibilityCache(int capacity) {
+        super(capacity);
+    }
+}
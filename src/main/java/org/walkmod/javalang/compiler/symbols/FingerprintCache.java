@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2015 Raquel Pau and Albert Coroleu.
+ *
+ * Walkmod is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Walkmod is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Walkmod. If
+ * not, see <http://www.gnu.org/licenses/>.
+ */
+package org.walkmod.javalang.compiler.symbols;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache whose keys are structural fingerprints of symbol types (see
+ * {@link SymbolType#fingerprint}) or the immutable types themselves. The resolved classes are part
+ * of the keys, so a cache must only be used with the classes of one classloader. The least recently used values are discarded
+ * when the cache is full.
+ */
+public class FingerprintCache<V> {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final Map<Object, V> values;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    public FingerprintCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    @SuppressWarnings("serial")
+    public FingerprintCache(final int capacity) {
+        values = new LinkedHashMap<Object, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    V get(Object key) {
+        V result;
+        synchronized (values) {
+            result = values.get(key);
+        }
+        if (result == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return result;
+    }
+
+    void put(Object key, V value) {
+        synchronized (values) {
+            values.put(key, value);
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        synchronized (values) {
+            return values.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (values) {
+            values.clear();
+        }
+    }
+}
@@ -89,6 +89,32 @@ public class MethodSymbol extends Symbol {
         this.referencedConstructor = referencedConstructor;
     }
 
+    @Override
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public MethodSymbol copy(List actions) {
+        SymbolType type = getType();
+        if (type != null) {
+            type = type.clone();
+        }
+        SymbolType[] argsCopy = null;
+        if (args != null) {
+            argsCopy = new SymbolType[args.length];
+            for (int i = 0; i < args.length; i++) {
+                argsCopy[i] = args[i] != null ? args[i].clone() : null;
+            }
+        }
+        MethodSymbol copy;
+        if (referencedConstructor != null) {
+            copy = new MethodSymbol(getName(), type, getLocation(), scope, argsCopy, isStaticallyImported(),
+                    hasDynamicArgs, referencedConstructor, actions);
+        } else {
+            copy = new MethodSymbol(getName(), type, getLocation(), scope, argsCopy, isStaticallyImported(),
+                    hasDynamicArgs, referencedMethod, actions);
+        }
+        copy.setInnerScope(getInnerScope());
+        return copy;
+    }
+
     public MethodSymbol buildTypeParameters(Map<String, SymbolType> typeParams) {
         MethodSymbol result = null;
         if (referencedMethod != null && typeParams != null) {
@@ -18,7 +18,10 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
@@ -26,10 +29,12 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.walkmod.javalang.ast.ImportDeclaration;
 import org.walkmod.javalang.ast.Node;
 import org.walkmod.javalang.ast.SymbolDefinition;
+import org.walkmod.javalang.ast.SymbolReference;
 import org.walkmod.javalang.ast.body.ClassOrInterfaceDeclaration;
 import org.walkmod.javalang.ast.expr.ObjectCreationExpr;
 import org.walkmod.javalang.compiler.ArrayFilter;
@@ -41,10 +46,12 @@ import org.walkmod.javalang.compiler.reflection.ExecutableSorter;
 
 public class Scope {
 
-    private Map<String, ArrayList<Symbol<?>>> symbols = new HashMap<String, ArrayList<Symbol<?>>>();
+    private final ScopeSymbols symbols = new ScopeSymbols();
 
     private List<SymbolAction> actions;
 
+    private SymbolActions subscribers = null;
+
     private Symbol<?> rootSymbol = null;
 
     private int innerAnonymousClassCounter = 0;
@@ -55,10 +62,61 @@ public class Scope {
 
     private Map<String, SymbolType> typeParams = null;
 
+    /**
+     * The symbol is copied with an override, like {@link #addSymbol(Symbol, boolean)}, even if the
+     * scope inherits the symbols without it.
+     */
+    public static final int OVERRIDE = 1;
+
+    /** The symbol is copied without the actions of the scope that inherits it. */
+    public static final int WITHOUT_ACTIONS = 2;
+
+    /** The symbol is only copied into the scopes that inherit the optional symbols. */
+    public static final int OPTIONAL = 4;
+
+    private List<Parent> parents = null;
+
+    /** how the symbols of a shared scope are copied, see {@link #addSharedSymbol(Symbol, int)} */
+    private Map<Symbol<?>, Integer> sharedFlags = null;
+
+    /** symbols of the parents that the methods that list the symbols return, built on demand */
+    private List<Inherited> inherited = null;
+
+    private boolean frozen = false;
+
+    /** symbol table that indexes the names of this scope while it is pushed */
+    private SymbolTable table = null;
+
+    private int level = -1;
+
     private static ExecutableSorter sorter = new ExecutableSorter();
 
     private static ConstructorSorter constructorSorter = new ConstructorSorter();
 
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private static final Object OVERLOAD_KEY_SEPARATOR = new Object();
+
+    private long version = 0;
+
+    private Map<List<Object>, Symbol<?>> overloads = null;
+
+    private long overloadsStamp = -1;
+
+    /** secondary indexes, built when they are first queried and updated with the symbols */
+    private Map<ReferenceType, List<Symbol<?>>> symbolsByType = null;
+
+    private Map<Node, List<Symbol<?>>> symbolsByLocation = null;
+
+    /** changes when a type param or the super scope is declared */
+    private long typeParamsVersion = 0;
+
+    private Map<String, SymbolType> effectiveTypeParams = null;
+
+    private long effectiveTypeParamsStamp = -1;
+
+    private Scope effectiveTypeParamsSuper = null;
+
     public Scope() {}
 
     public Scope(Symbol<?> rootSymbol) {
@@ -72,6 +130,7 @@ public class Scope {
 
     public void setRootSymbol(Symbol<?> rootSymbol) {
         this.rootSymbol = rootSymbol;
+        modified();
     }
 
     public void setHasMethodsLoaded(boolean hasMethodsLoaded) {
@@ -90,8 +149,269 @@ public class Scope {
         return rootSymbol;
     }
 
+    /**
+     * Makes the symbols of a read-only scope visible from this one, see
+     * {@link #addParent(Scope, List, Node, boolean, boolean)}.
+     *
+     * @param parent
+     *            frozen scope
+     * @param actions
+     *            actions of the copied symbols
+     */
+    public void addParent(Scope parent, List<SymbolAction> actions) {
+        addParent(parent, actions, null, false, false);
+    }
+
+    /**
+     * Makes the symbols of a read-only scope visible from this one, as if they were added to this
+     * scope at this point. The parent is shared between symbol tables, so its symbols are copied
+     * into this scope the first time that their name is looked up or redefined here. The names
+     * that are already defined here are copied now, so the parents keep the order in which they
+     * are added. The methods that list the symbols of this scope return the shared symbols that
+     * have not been copied, which must not be modified, and the symbols of a parent with a
+     * location are listed by that location. While this scope is pushed, the actions receive a PUSH
+     * event for each copy, and the copies are the only symbols of the parents that receive the
+     * POP events.
+     *
+     * @param parent
+     *            frozen scope
+     * @param actions
+     *            actions of the copied symbols
+     * @param location
+     *            location of the copied symbols or null to keep the location of the shared ones
+     * @param override
+     *            if the copied symbols override the symbols of the same name
+     * @param optional
+     *            if the symbols of the parent added as {@link #OPTIONAL} are copied
+     */
+    public void addParent(Scope parent, List<SymbolAction> actions, Node location, boolean override,
+            boolean optional) {
+        Parent link = new Parent(parent, actions, location, override, optional);
+        if (parents == null) {
+            parents = new ArrayList<Parent>(2);
+        }
+        parents.add(link);
+        inherited = null;
+        for (String name : new ArrayList<String>(symbols.names())) {
+            List<Symbol<?>> shared = parent.getSymbols(name);
+            if (shared != null) {
+                copySymbols(link, shared, symbols.get(name));
+            }
+        }
+    }
+
+    public boolean hasParents() {
+        return parents != null;
+    }
+
+    /**
+     * @return the scopes whose symbols are visible from this one, in the order they were added.
+     */
+    public List<Scope> getParents() {
+        if (parents == null) {
+            return Collections.emptyList();
+        }
+        List<Scope> result = new ArrayList<Scope>(parents.size());
+        for (Parent link : parents) {
+            result.add(link.scope);
+        }
+        return result;
+    }
+
+    /**
+     * Adds a symbol to a scope that is going to be shared as a parent. The symbols of a shared
+     * scope are kept in the order they are added, and each copy is added to the inheriting scope
+     * with its own override, so the copies are added like the original symbols would be.
+     *
+     * @param symbol
+     *            symbol without location
+     * @param flags
+     *            {@link #OVERRIDE}, {@link #WITHOUT_ACTIONS} and {@link #OPTIONAL}
+     */
+    public void addSharedSymbol(Symbol<?> symbol, int flags) {
+        if (frozen) {
+            throw new UnsupportedOperationException("The scope is read-only. " + symbol.getName() + " cannot be added");
+        }
+        ArrayList<Symbol<?>> values = symbols.get(symbol.getName());
+        if (values == null) {
+            values = new ArrayList<Symbol<?>>(1);
+            putSymbols(symbol.getName(), values);
+        } else {
+            modified();
+        }
+        values.add(symbol);
+        indexSymbol(symbol);
+        if (flags != 0) {
+            if (sharedFlags == null) {
+                sharedFlags = new IdentityHashMap<Symbol<?>, Integer>();
+            }
+            sharedFlags.put(symbol, flags);
+        }
+    }
+
+    private int getSharedFlags(Symbol<?> symbol) {
+        if (sharedFlags == null) {
+            return 0;
+        }
+        Integer flags = sharedFlags.get(symbol);
+        return flags == null ? 0 : flags;
+    }
+
+    /**
+     * Forbids adding symbols to this scope, so it can be shared as a parent scope.
+     */
+    public void freeze() {
+        frozen = true;
+        // the indexes are built now because the scope is read concurrently from now on
+        getSymbolsByReferenceType(ReferenceType.TYPE);
+        getSymbolsByLocation(null);
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    SymbolTable getIndexingTable() {
+        return table;
+    }
+
+    int getLevel() {
+        return level;
+    }
+
+    void setIndexingTable(SymbolTable table, int level) {
+        this.table = table;
+        this.level = level;
+    }
+
+    Collection<String> getNames() {
+        return symbols.names();
+    }
+
+    private void putSymbols(String name, ArrayList<Symbol<?>> values) {
+        modified();
+        if ("super".equals(name)) {
+            typeParamsVersion = version;
+        }
+        symbols.put(name, values);
+        if (table != null) {
+            table.indexName(name, level);
+        }
+    }
+
+    private ArrayList<Symbol<?>> copyFromParents(String name) {
+        ArrayList<Symbol<?>> values = null;
+        for (Parent link : parents) {
+            List<Symbol<?>> shared = link.scope.getSymbols(name);
+            if (shared != null) {
+                values = copySymbols(link, shared, values);
+            }
+        }
+        return values;
+    }
+
+    private ArrayList<Symbol<?>> copySymbols(Parent link, List<Symbol<?>> shared, ArrayList<Symbol<?>> values) {
+        List<Symbol<?>> copies = new ArrayList<Symbol<?>>(shared.size());
+        for (Symbol<?> symbol : shared) {
+            if (link.inherits(symbol)) {
+                int flags = link.scope.getSharedFlags(symbol);
+                List<SymbolAction> actions = (flags & WITHOUT_ACTIONS) != 0 ? null : link.actions;
+                Symbol<?> copy = symbol.copy(actions, link.location);
+                values = insertSymbol(values, copy, link.override || (flags & OVERRIDE) != 0);
+                copies.add(copy);
+            }
+        }
+        if (table != null) {
+            table.pushCopiedSymbols(this, copies);
+        }
+        return values;
+    }
+
+    /**
+     * @return the shared symbols that would be copied from the parents for each name, in the order
+     *         the parents were added. The names defined here are filtered when they are listed.
+     */
+    private List<Inherited> getInherited() {
+        if (inherited == null) {
+            Map<String, List<Inherited>> byName = new LinkedHashMap<String, List<Inherited>>();
+            for (Parent link : parents) {
+                for (Symbol<?> symbol : link.scope.getSymbols()) {
+                    if (link.inherits(symbol)) {
+                        List<Inherited> values = byName.get(symbol.getName());
+                        if (values == null) {
+                            values = new ArrayList<Inherited>(1);
+                            byName.put(symbol.getName(), values);
+                        }
+                        inherit(values, new Inherited(symbol, link));
+                    }
+                }
+            }
+            List<Inherited> result = new ArrayList<Inherited>();
+            for (List<Inherited> values : byName.values()) {
+                result.addAll(values);
+            }
+            inherited = result;
+        }
+        return inherited;
+    }
+
+    /**
+     * Applies the overrides of {@link #insertSymbol(ArrayList, Symbol, boolean)} to the shared
+     * symbols of a name without copying them.
+     */
+    private static void inherit(List<Inherited> values, Inherited candidate) {
+        boolean discarded = false;
+        if (candidate.isOverride()) {
+            Iterator<Inherited> it = values.iterator();
+            while (it.hasNext()) {
+                Inherited value = it.next();
+                int replaced = replaces(value.symbol, value.getLocation(), candidate.symbol, candidate.getLocation());
+                if (replaced > 0) {
+                    it.remove();
+                } else if (replaced < 0) {
+                    discarded = true;
+                }
+            }
+        }
+        if (!discarded) {
+            values.add(candidate);
+        }
+    }
+
+    /**
+     * Adds the symbols of the parents that have not been copied into this scope.
+     */
+    private void addParentSymbols(List<Symbol<?>> result, ReferenceType referenceType, Node location,
+            boolean byLocation) {
+        for (Inherited entry : getInherited()) {
+            Symbol<?> symbol = entry.symbol;
+            boolean selected;
+            if (byLocation) {
+                selected = entry.getLocation() == location;
+            } else {
+                selected = referenceType == null || symbol.getReferenceType() == referenceType;
+            }
+            if (selected && symbols.get(symbol.getName()) == null) {
+                result.add(symbol);
+            }
+        }
+    }
+
     public List<Symbol<?>> getSymbols() {
-        List<Symbol<?>> result = new LinkedList<Symbol<?>>();
+        if (parents == null) {
+            return getLocalSymbols();
+        }
+        List<Symbol<?>> result = getLocalSymbols();
+        addParentSymbols(result, null, null, false);
+        return result;
+    }
+
+    /**
+     * @return the symbols added to this scope, including the symbols copied from the parents, but
+     *         not the ones that have not been looked up.
+     */
+    List<Symbol<?>> getLocalSymbols() {
+        List<Symbol<?>> result = new ArrayList<Symbol<?>>();
 
         Iterator<ArrayList<Symbol<?>>> it = symbols.values().iterator();
         while (it.hasNext()) {
@@ -111,6 +431,9 @@ public class Scope {
     public Symbol<?> findSymbol(String name, boolean local, ReferenceType... referenceType) {
         Symbol<?> result = null;
         List<Symbol<?>> list = symbols.get(name);
+        if (list == null && parents != null) {
+            list = copyFromParents(name);
+        }
         if (list != null) {
             Iterator<Symbol<?>> it = list.iterator();
             while (it.hasNext() && result == null) {
@@ -150,85 +473,168 @@ public class Scope {
     }
 
     public List<Symbol<?>> getSymbolsByLocation(Node node) {
-        List<Symbol<?>> result = new LinkedList<Symbol<?>>();
-        Collection<ArrayList<Symbol<?>>> values = symbols.values();
-        Iterator<ArrayList<Symbol<?>>> it = values.iterator();
-        while (it.hasNext()) {
-            List<Symbol<?>> list = it.next();
-            for (Symbol<?> symbol : list) {
-                if (symbol.getLocation() == node) {// yes, by reference
-                    result.add(symbol);
-                }
+        if (symbolsByLocation == null) {
+            symbolsByLocation = new IdentityHashMap<Node, List<Symbol<?>>>();
+            for (Symbol<?> symbol : getLocalSymbols()) {
+                addToIndex(symbolsByLocation, symbol.getLocation(), symbol);
             }
         }
-
+        List<Symbol<?>> result = new LinkedList<Symbol<?>>();
+        List<Symbol<?>> bucket = symbolsByLocation.get(node);
+        if (bucket != null) {
+            result.addAll(bucket);
+        }
+        if (parents != null) {
+            addParentSymbols(result, null, node, true);
+        }
         return result;
     }
 
     public List<Symbol<?>> getSymbolsByType(String typeName, ReferenceType referenceType) {
         List<Symbol<?>> result = new LinkedList<Symbol<?>>();
-        Collection<ArrayList<Symbol<?>>> values = symbols.values();
-        Iterator<ArrayList<Symbol<?>>> it = values.iterator();
-        while (it.hasNext()) {
-            List<Symbol<?>> list = it.next();
-            for (Symbol<?> symbol : list) {
-                if (symbol.getReferenceType() == referenceType) {// yes, by
-                                                                 // reference
-
-                    if (symbol.getType().getName().startsWith(typeName)) {
-                        result.add(symbol);
-                    }
-                }
+        for (Symbol<?> symbol : getSymbolsByReferenceType(referenceType)) {
+            if (symbol.getType().getName().startsWith(typeName)) {
+                result.add(symbol);
             }
         }
-
         return result;
 
     }
 
     public List<Symbol<?>> getSymbolsByType(ReferenceType... referenceType) {
+        if (referenceType == null || referenceType.length == 0) {
+            return getSymbols();
+        }
         List<Symbol<?>> result = new LinkedList<Symbol<?>>();
-        Collection<ArrayList<Symbol<?>>> values = symbols.values();
-        Iterator<ArrayList<Symbol<?>>> it = values.iterator();
-        while (it.hasNext()) {
-            List<Symbol<?>> list = it.next();
-            for (Symbol<?> symbol : list) {
-                boolean found = false;
+        for (int i = 0; i < referenceType.length; i++) {
+            boolean repeated = false;
+            for (int j = 0; j < i && !repeated; j++) {
+                repeated = referenceType[j] == referenceType[i];
+            }
+            if (!repeated) {
+                result.addAll(getSymbolsByReferenceType(referenceType[i]));
+            }
+        }
+        return result;
+    }
 
-                if (referenceType == null || referenceType.length == 0) {
+    private List<Symbol<?>> getSymbolsByReferenceType(ReferenceType referenceType) {
+        if (symbolsByType == null) {
+            symbolsByType = new EnumMap<ReferenceType, List<Symbol<?>>>(ReferenceType.class);
+            for (Symbol<?> symbol : getLocalSymbols()) {
+                addToIndex(symbolsByType, symbol.getReferenceType(), symbol);
+            }
+        }
+        List<Symbol<?>> bucket = symbolsByType.get(referenceType);
+        if (parents != null) {
+            List<Symbol<?>> result = new ArrayList<Symbol<?>>();
+            if (bucket != null) {
+                result.addAll(bucket);
+            }
+            addParentSymbols(result, referenceType, null, false);
+            return result;
+        }
+        if (bucket == null) {
+            return Collections.emptyList();
+        }
+        return bucket;
+    }
 
-                    found = true;
-                } else {
+    private void indexSymbol(Symbol<?> symbol) {
+        symbol.addOwner(this);
+        if (symbolsByType != null) {
+            addToIndex(symbolsByType, symbol.getReferenceType(), symbol);
+        }
+        if (symbolsByLocation != null) {
+            addToIndex(symbolsByLocation, symbol.getLocation(), symbol);
+        }
+    }
 
-                    for (int i = 0; i < referenceType.length && !found; i++) {
-                        found = symbol.getReferenceType() == referenceType[i];
-                    }
-                }
-                if (found) {
-                    result.add(symbol);
-                }
-            }
+    private void unindexSymbol(Symbol<?> symbol) {
+        symbol.removeOwner(this);
+        if (symbolsByType != null) {
+            removeFromIndex(symbolsByType, symbol.getReferenceType(), symbol);
         }
+        if (symbolsByLocation != null) {
+            removeFromIndex(symbolsByLocation, symbol.getLocation(), symbol);
+        }
+    }
 
-        return result;
+    /**
+     * Moves a symbol of this scope to the bucket of its new location, see
+     * {@link Symbol#setLocation(Node)}. A frozen scope is read concurrently, so it keeps the
+     * location that its symbols had when it was frozen.
+     */
+    void relocate(Symbol<?> symbol, Node previousLocation) {
+        if (!frozen && symbolsByLocation != null) {
+            removeFromIndex(symbolsByLocation, previousLocation, symbol);
+            addToIndex(symbolsByLocation, symbol.getLocation(), symbol);
+        }
+    }
 
+    private static <K> void addToIndex(Map<K, List<Symbol<?>>> index, K key, Symbol<?> symbol) {
+        List<Symbol<?>> bucket = index.get(key);
+        if (bucket == null) {
+            bucket = new ArrayList<Symbol<?>>(2);
+            index.put(key, bucket);
+        }
+        bucket.add(symbol);
     }
 
+    private static <K> void removeFromIndex(Map<K, List<Symbol<?>>> index, K key, Symbol<?> symbol) {
+        List<Symbol<?>> bucket = index.get(key);
+        if (bucket != null) {
+            Iterator<Symbol<?>> it = bucket.iterator();
+            while (it.hasNext()) {
+                if (it.next() == symbol) {// yes, by reference
+                    it.remove();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the type params of this scope and its super scopes. The map is cached until a type
+     *         param or a super scope is declared, so it is read-only.
+     */
     public Map<String, SymbolType> getTypeParams() {
-        Map<String, SymbolType> aux = new HashMap<String, SymbolType>();
-        List<Symbol<?>> superSymbol = symbols.get("super");
-        if (superSymbol != null) {
-            Scope superScope = superSymbol.get(0).getInnerScope();
+        Scope superScope = getSuperScope();
+        long stamp = getTypeParamsVersion();
+        if (effectiveTypeParams == null || effectiveTypeParamsStamp != stamp
+                || effectiveTypeParamsSuper != superScope) {
+            Map<String, SymbolType> aux = new HashMap<String, SymbolType>();
             if (superScope != null) {
-
                 aux.putAll(superScope.getTypeParams());
             }
+            if (typeParams != null) {
+                aux.putAll(typeParams);
+            }
+            effectiveTypeParams = Collections.unmodifiableMap(aux);
+            effectiveTypeParamsStamp = stamp;
+            effectiveTypeParamsSuper = superScope;
         }
-        if (typeParams != null) {
-            aux.putAll(typeParams);
+        return effectiveTypeParams;
+    }
+
+    private long getTypeParamsVersion() {
+        long result = typeParamsVersion;
+        Scope superScope = getSuperScope();
+        if (superScope != null) {
+            result = Math.max(result, superScope.getTypeParamsVersion());
         }
+        return result;
+    }
 
-        return aux;
+    private Scope getSuperScope() {
+        List<Symbol<?>> superSymbol = symbols.get("super");
+        if (superSymbol != null && !superSymbol.isEmpty()) {
+            Scope superScope = superSymbol.get(0).getInnerScope();
+            if (superScope != this) {
+                return superScope;
+            }
+        }
+        return null;
     }
 
     public Map<String, SymbolType> getLocalTypeParams() {
@@ -243,7 +649,7 @@ public class Scope {
         List<Method> sortedMethods = sorter.sort(execs.values().toArray(methods), SymbolType.toClassArray(args));
         ArrayFilter<Method> filter = new ArrayFilter<Method>(sortedMethods.toArray(methods));
         CompatibleArgsPredicate<Method> cap = new CompatibleArgsPredicate<Method>(args);
-        cap.setTypeMapping(getTypeParams());
+        cap.setTypeMapping(new HashMap<String, SymbolType>(getTypeParams()));
         filter.appendPredicate(cap);
         if (predicates != null && !predicates.isEmpty()) {
             Predicate<?> first = predicates.get(0);
@@ -273,7 +679,7 @@ public class Scope {
                 constructorSorter.sort(execs.values().toArray(methods), SymbolType.toClassArray(args));
         ArrayFilter<Constructor> filter = new ArrayFilter<Constructor>(sortedMethods.toArray(methods));
         CompatibleArgsPredicate<Constructor> cap = new CompatibleArgsPredicate<Constructor>(args);
-        cap.setTypeMapping(getTypeParams());
+        cap.setTypeMapping(new HashMap<String, SymbolType>(getTypeParams()));
         filter.appendPredicate(cap);
         if (predicates != null && !predicates.isEmpty()) {
             Predicate<?> first = predicates.get(0);
@@ -295,6 +701,121 @@ public class Scope {
         return exec;
     }
 
+    /**
+     * Resolves the overload of a method or constructor declared in this scope. The selected
+     * symbols are memoized by name and argument types until the scope is modified. The calls whose
+     * resolution depends on extra predicates (e.g. functional arguments) are not memoized.
+     */
+    private Symbol<?> findLocalMethod(String name, boolean local, SymbolType[] args, List<Predicate<?>> predicates) {
+        List<Symbol<?>> values = symbols.get(name);
+        if (values == null) {
+            return null;
+        }
+        List<Object> key = null;
+        if (predicates == null || predicates.isEmpty()) {
+            long stamp = getVersion();
+            if (overloadsStamp != stamp) {
+                overloads = null;
+                overloadsStamp = stamp;
+            }
+            key = getOverloadKey(name, local, args);
+            if (overloads != null) {
+                Symbol<?> cached = overloads.get(key);
+                if (cached != null || overloads.containsKey(key)) {
+                    return cached;
+                }
+            }
+        }
+        Symbol<?> result = null;
+        Iterator<Symbol<?>> it = values.iterator();
+
+        Map<Integer, Object> execs = new HashMap<Integer, Object>();
+
+        int i = 0;
+        boolean isConstructor = false;
+        while (it.hasNext()) {
+            Symbol<?> symbol = it.next();
+            if (symbol instanceof MethodSymbol) {
+                MethodSymbol aux = (MethodSymbol) symbol;
+                Object m = aux.getReferencedMethod();
+                if (m == null) {
+                    m = aux.getReferencedConstructor();
+                    isConstructor = true;
+                }
+
+                if (m != null) {
+                    if (local && rootSymbol != null) {
+                        Node location = aux.getLocation();
+                        if (location != null && location.getParentNode() == rootSymbol.getLocation()) {
+                            execs.put(i, m);
+                        }
+                    } else {
+                        execs.put(i, m);
+                    }
+                }
+
+            }
+            i++;
+        }
+        if (execs.isEmpty()) {
+            result = null;
+        } else {
+            Object exec = null;
+            if (isConstructor) {
+                exec = runPredicatesOnConstructors(predicates, execs, args);
+            } else {
+                exec = runPredicatesOnMethodCalls(predicates, execs, args);
+            }
+            Set<Integer> keys = execs.keySet();
+            Iterator<Integer> itKeys = keys.iterator();
+            while (itKeys.hasNext() && result == null) {
+                Integer index = itKeys.next();
+                if (execs.get(index) == exec) {
+                    result = values.get(index);
+                }
+            }
+        }
+        if (key != null) {
+            if (overloads == null) {
+                overloads = new HashMap<List<Object>, Symbol<?>>();
+            }
+            overloads.put(key, result);
+        }
+        return result;
+    }
+
+    private static List<Object> getOverloadKey(String name, boolean local, SymbolType[] args) {
+        List<Object> key = new ArrayList<Object>();
+        key.add(name);
+        key.add(local);
+        for (SymbolType arg : args) {
+            key.add(OVERLOAD_KEY_SEPARATOR);
+            if (arg != null) {
+                arg.fingerprint(key);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * @return a number that changes when the symbols of this scope or of its super scopes change.
+     */
+    long getVersion() {
+        long result = version;
+        List<Symbol<?>> superSymbol = symbols.get("super");
+        if (superSymbol != null) {
+            Scope superScope = superSymbol.get(0).getInnerScope();
+            if (superScope != null && superScope != this) {
+                result = Math.max(result, superScope.getVersion());
+            }
+        }
+        return result;
+    }
+
+    private void modified() {
+        version = VERSIONS.incrementAndGet();
+    }
+
     public Symbol<?> findSymbol(String name, SymbolType scope, SymbolType[] args, List<Predicate<?>> predicates,
             ReferenceType... referenceType) {
         return findSymbol(name, false, scope, args, predicates, referenceType);
@@ -310,59 +831,9 @@ public class Scope {
 
         } else {
 
-            List<Symbol<?>> values = symbols.get(name);
-            if (values != null) {
-                Iterator<Symbol<?>> it = values.iterator();
-
-                Map<Integer, Object> execs = new HashMap<Integer, Object>();
-
-                int i = 0;
-                boolean isConstructor = false;
-                while (it.hasNext()) {
-                    Symbol<?> symbol = it.next();
-                    if (symbol instanceof MethodSymbol) {
-                        MethodSymbol aux = (MethodSymbol) symbol;
-                        Object m = aux.getReferencedMethod();
-                        if (m == null) {
-                            m = aux.getReferencedConstructor();
-                            isConstructor = true;
-                        }
-
-                        if (m != null) {
-                            if (local && rootSymbol != null) {
-                                Node location = aux.getLocation();
-                                if (location != null && location.getParentNode() == rootSymbol.getLocation()) {
-                                    execs.put(i, m);
-                                }
-                            } else {
-                                execs.put(i, m);
-                            }
-                        }
-
-                    }
-                    i++;
-                }
-                if (execs.isEmpty()) {
-                    result = null;
-                } else {
-                    Object exec = null;
-                    if (isConstructor) {
-                        exec = runPredicatesOnConstructors(predicates, execs, args);
-                    } else {
-                        exec = runPredicatesOnMethodCalls(predicates, execs, args);
-                    }
-                    Set<Integer> keys = execs.keySet();
-                    Iterator<Integer> itKeys = keys.iterator();
-                    while (itKeys.hasNext() && result == null) {
-                        Integer key = itKeys.next();
-                        if (execs.get(key) == exec) {
-                            result = values.get(key);
-                        }
-                    }
-                }
-            }
+            result = findLocalMethod(name, local, args, predicates);
             if (result == null) {
-                values = symbols.get("super");
+                List<Symbol<?>> values = symbols.get("super");
                 if (values != null) {
                     Symbol<?> superSymbol = values.get(0);
 
@@ -387,13 +858,23 @@ public class Scope {
 
     public void chageSymbol(Symbol<?> oldSymbol, Symbol<?> newSymbol) {
         List<Symbol<?>> list = symbols.get(oldSymbol.getName());
-        if (list.remove(oldSymbol)) {
+        int index = list.indexOf(oldSymbol);
+        if (index != -1) {
+            unindexSymbol(list.remove(index));
+            modified();
             ArrayList<Symbol<?>> values = symbols.get(newSymbol.getName());
+            if (values == null && parents != null) {
+                values = copyFromParents(newSymbol.getName());
+            }
             if (values == null) {
                 values = new ArrayList<Symbol<?>>();
-                symbols.put(newSymbol.getName(), values);
+                putSymbols(newSymbol.getName(), values);
             }
             values.add(newSymbol);
+            indexSymbol(newSymbol);
+            if ("super".equals(newSymbol.getName())) {
+                typeParamsVersion = version;
+            }
         }
     }
 
@@ -417,40 +898,43 @@ public class Scope {
     }
 
     public <T extends Node & SymbolDefinition> boolean addSymbol(Symbol<T> symbol, boolean override) {
+        if (frozen) {
+            throw new UnsupportedOperationException("The scope is read-only. " + symbol.getName() + " cannot be added");
+        }
+        modified();
         String name = symbol.getName();
         ArrayList<Symbol<?>> values = symbols.get(name);
+        if (values == null && parents != null) {
+            values = copyFromParents(name);
+        }
+        insertSymbol(values, symbol, override);
+        return true;
+    }
+
+    /**
+     * Adds a symbol to the symbols of its name.
+     *
+     * @param values
+     *            symbols of the name or null if it is not defined
+     * @return the symbols of the name
+     */
+    private ArrayList<Symbol<?>> insertSymbol(ArrayList<Symbol<?>> values, Symbol<?> symbol, boolean override) {
+        String name = symbol.getName();
         boolean added = false;
         if (values == null) {
             values = new ArrayList<Symbol<?>>();
-            symbols.put(symbol.getName(), values);
+            putSymbols(symbol.getName(), values);
         } else {
             if (override) {
                 Iterator<Symbol<?>> it = values.iterator();
                 while (it.hasNext()) {
                     Symbol<?> value = it.next();
-
-                    if (!value.getReferenceType().equals(ReferenceType.METHOD)
-                            && value.getReferenceType().equals(symbol.getReferenceType())) {
-                        Object originalLocation = value.getLocation();
-                        Object newLocation = symbol.getLocation();
-
-                        if (originalLocation != null && newLocation != null
-                                && (originalLocation instanceof ImportDeclaration)
-                                && (newLocation instanceof ImportDeclaration)) {
-                            // there is an import override, the non asterisk has
-                            // priority
-                            ImportDeclaration newImport = (ImportDeclaration) newLocation;
-                            ImportDeclaration originalImport = (ImportDeclaration) originalLocation;
-
-                            if (originalImport.isAsterisk() && !newImport.isAsterisk()) {
-                                it.remove();
-                            } else if (!originalImport.isAsterisk() && newImport.isAsterisk()) {
-                                added = true;
-                            }
-
-                        } else {
-                            it.remove();
-                        }
+                    int replaced = replaces(value, value.getLocation(), symbol, symbol.getLocation());
+                    if (replaced > 0) {
+                        it.remove();
+                        unindexSymbol(value);
+                    } else if (replaced < 0) {
+                        added = true;
                     }
                 }
             }
@@ -462,12 +946,14 @@ public class Scope {
 
             if (!typeParams.containsKey(name)) {
                 typeParams.put(name, symbol.getType());
+                typeParamsVersion = version;
             } else {
                 added = true;
             }
         }
         if (values.isEmpty()) {
             values.add(symbol);
+            indexSymbol(symbol);
         } else {
             int pos = values.size();
 
@@ -487,6 +973,7 @@ public class Scope {
                             if (md != null) {
                                 if (cmp.compare(refMethod, md) == 1) {
                                     values.add(pos, ms);
+                                    indexSymbol(ms);
                                     added = true;
                                 }
                             }
@@ -500,9 +987,37 @@ public class Scope {
             }
             if (!added) {
                 values.add(pos, symbol);
+                indexSymbol(symbol);
             }
         }
-        return true;
+        return values;
+    }
+
+    /**
+     * Compares a symbol with the symbol of the same name that overrides it.
+     *
+     * @return a positive number if the original symbol is removed, a negative number if the new
+     *         symbol is discarded and 0 if both are kept.
+     */
+    private static int replaces(Symbol<?> original, Object originalLocation, Symbol<?> symbol, Object newLocation) {
+        if (original.getReferenceType().equals(ReferenceType.METHOD)
+                || !original.getReferenceType().equals(symbol.getReferenceType())) {
+            return 0;
+        }
+        if (originalLocation instanceof ImportDeclaration && newLocation instanceof ImportDeclaration) {
+            // there is an import override, the non asterisk has
+            // priority
+            ImportDeclaration newImport = (ImportDeclaration) newLocation;
+            ImportDeclaration originalImport = (ImportDeclaration) originalLocation;
+
+            if (originalImport.isAsterisk() && !newImport.isAsterisk()) {
+                return 1;
+            } else if (!originalImport.isAsterisk() && newImport.isAsterisk()) {
+                return -1;
+            }
+            return 0;
+        }
+        return 1;
     }
 
     public boolean hasMethodsLoaded() {
@@ -521,6 +1036,16 @@ public class Scope {
         }
     }
 
+    void invokeActions(Symbol<?> symbol, SymbolTable table, SymbolEvent event, SymbolReference reference)
+            throws Exception {
+        if (actions != null) {
+            if (subscribers == null || subscribers.getActions() != actions) {
+                subscribers = new SymbolActions(actions);
+            }
+            subscribers.invoke(symbol, table, event, reference);
+        }
+    }
+
     public int getInnerAnonymousClassCounter() {
         return innerAnonymousClassCounter;
     }
@@ -529,4 +1054,55 @@ public class Scope {
         innerAnonymousClassCounter++;
     }
 
+    /**
+     * A shared scope whose symbols are visible from this one.
+     */
+    private static final class Parent {
+
+        private final Scope scope;
+
+        private final List<SymbolAction> actions;
+
+        private final Node location;
+
+        private final boolean override;
+
+        private final boolean optional;
+
+        Parent(Scope scope, List<SymbolAction> actions, Node location, boolean override, boolean optional) {
+            this.scope = scope;
+            this.actions = actions;
+            this.location = location;
+            this.override = override;
+            this.optional = optional;
+        }
+
+        boolean inherits(Symbol<?> symbol) {
+            return optional || (scope.getSharedFlags(symbol) & OPTIONAL) == 0;
+        }
+    }
+
+    /**
+     * A shared symbol that is visible through a parent and has not been copied.
+     */
+    private static final class Inherited {
+
+        private final Symbol<?> symbol;
+
+        private final Parent link;
+
+        Inherited(Symbol<?> symbol, Parent link) {
+            this.symbol = symbol;
+            this.link = link;
+        }
+
+        Node getLocation() {
+            return link.location != null ? link.location : symbol.getLocation();
+        }
+
+        boolean isOverride() {
+            return link.override || (link.scope.getSharedFlags(symbol) & OVERRIDE) != 0;
+        }
+    }
+
 }
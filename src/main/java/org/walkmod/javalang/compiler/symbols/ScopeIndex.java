@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2015 Raquel Pau and Albert Coroleu.
+ *
+ * Walkmod is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Walkmod is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Walkmod. If
+ * not, see <http://www.gnu.org/licenses/>.
+ */
+package org.walkmod.javalang.compiler.symbols;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Levels of the scopes of a {@link SymbolTable} that declare each name, in ascending order. It
+ * is updated when the scopes are pushed and popped and when a pushed scope declares a new name,
+ * so the lookups only visit the scopes that contain the name.
+ */
+final class ScopeIndex {
+
+    private final Map<String, Levels> levels = new HashMap<String, Levels>();
+
+    public Levels get(String name) {
+        Levels result = levels.get(name);
+        if (result == null || result.size == 0) {
+            return null;
+        }
+        return result;
+    }
+
+    public void add(String name, int level) {
+        Levels values = levels.get(name);
+        if (values == null) {
+            values = new Levels();
+            levels.put(name, values);
+        }
+        values.add(level);
+    }
+
+    public void remove(String name, int level) {
+        Levels values = levels.get(name);
+        if (values != null) {
+            values.remove(level);
+        }
+    }
+
+    static final class Levels {
+
+        private int[] values = new int[2];
+
+        private int size = 0;
+
+        public int size() {
+            return size;
+        }
+
+        public int get(int index) {
+            return values[index];
+        }
+
+        void add(int level) {
+            int pos = size;
+            while (pos > 0 && values[pos - 1] >= level) {
+                if (values[pos - 1] == level) {
+                    return;
+                }
+                pos--;
+            }
+            if (size == values.length) {
+                int[] aux = new int[size * 2];
+                System.arraycopy(values, 0, aux, 0, size);
+                values = aux;
+            }
+            System.arraycopy(values, pos, values, pos + 1, size - pos);
+            values[pos] = level;
+            size++;
+        }
+
+        void remove(int level) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (values[i] == level) {
+                    System.arraycopy(values, i + 1, values, i, size - i - 1);
+                    size--;
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2015 Raquel Pau and Albert Coroleu.
+ *
+ * Walkmod is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Walkmod is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Walkmod. If
+ * not, see <http://www.gnu.org/licenses/>.
+ */
+package org.walkmod.javalang.compiler.symbols;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Symbols of a {@link Scope} grouped by name. Most scopes (blocks, catch clauses, lambdas) only
+ * declare a few names, so they are kept in an array that is scanned linearly and a hash map is
+ * only created when a scope declares more than {@link #MAX_INLINE_NAMES} names.
+ */
+final class ScopeSymbols {
+
+    static final int MAX_INLINE_NAMES = 8;
+
+    private String[] names;
+
+    private List<ArrayList<Symbol<?>>> lists;
+
+    private Map<String, ArrayList<Symbol<?>>> map;
+
+    public ArrayList<Symbol<?>> get(String name) {
+        if (map != null) {
+            return map.get(name);
+        }
+        if (names == null) {
+            return null;
+        }
+        int size = lists.size();
+        for (int i = 0; i < size; i++) {
+            String key = names[i];
+            if (key == name || key.equals(name)) {
+                return lists.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds the symbols of a name that is not contained yet.
+     */
+    public void put(String name, ArrayList<Symbol<?>> symbols) {
+        if (map != null) {
+            map.put(name, symbols);
+            return;
+        }
+        if (names == null) {
+            names = new String[2];
+            lists = new ArrayList<ArrayList<Symbol<?>>>(2);
+        }
+        int size = lists.size();
+        if (size == MAX_INLINE_NAMES) {
+            map = new HashMap<String, ArrayList<Symbol<?>>>(MAX_INLINE_NAMES * 4);
+            for (int i = 0; i < size; i++) {
+                map.put(names[i], lists.get(i));
+            }
+            map.put(name, symbols);
+            names = null;
+            lists = null;
+            return;
+        }
+        if (size == names.length) {
+            names = Arrays.copyOf(names, Math.min(size * 2, MAX_INLINE_NAMES));
+        }
+        names[size] = name;
+        lists.add(symbols);
+    }
+
+    public Collection<String> names() {
+        if (map != null) {
+            return map.keySet();
+        }
+        if (lists == null) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(names).subList(0, lists.size());
+    }
+
+    public Collection<ArrayList<Symbol<?>>> values() {
+        if (map != null) {
+            return map.values();
+        }
+        if (lists == null) {
+            return Collections.emptyList();
+        }
+        return lists;
+    }
+}
@@ -14,6 +14,7 @@
  */
 package org.walkmod.javalang.compiler.symbols;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -35,8 +36,15 @@ public class Symbol<T extends Node & SymbolDefinition> {
 
     private List<SymbolAction> actions;
 
+    private SymbolActions subscribers = null;
+
     private Map<String, Object> attributes = new HashMap<String, Object>();
 
+    /** scopes that contain this symbol, which index it by its location */
+    private Scope owner = null;
+
+    private List<Scope> otherOwners = null;
+
     private Scope scopes;
 
     /* comes from an static import */
@@ -107,7 +115,44 @@ public class Symbol<T extends Node & SymbolDefinition> {
     }
 
     public void setLocation(T initNode) {
+        T previous = location;
         this.location = initNode;
+        if (owner != null) {
+            owner.relocate(this, previous);
+            if (otherOwners != null) {
+                for (Scope scope : otherOwners) {
+                    scope.relocate(this, previous);
+                }
+            }
+        }
+    }
+
+    void addOwner(Scope scope) {
+        if (owner == null) {
+            owner = scope;
+        } else {
+            if (otherOwners == null) {
+                otherOwners = new ArrayList<Scope>(1);
+            }
+            otherOwners.add(scope);
+        }
+    }
+
+    void removeOwner(Scope scope) {
+        if (owner == scope) {
+            owner = null;
+            if (otherOwners != null) {
+                owner = otherOwners.remove(otherOwners.size() - 1);
+                if (otherOwners.isEmpty()) {
+                    otherOwners = null;
+                }
+            }
+        } else if (otherOwners != null) {
+            otherOwners.remove(scope);
+            if (otherOwners.isEmpty()) {
+                otherOwners = null;
+            }
+        }
     }
 
     @Override
@@ -120,15 +165,50 @@ public class Symbol<T extends Node & SymbolDefinition> {
         return scopes;
     }
 
+    /**
+     * Creates an unshared copy of this symbol, with its own type and attributes.
+     *
+     * @param actions
+     *            actions of the copy
+     * @return the new symbol
+     */
+    public Symbol<T> copy(List<SymbolAction> actions) {
+        Symbol<T> copy = new Symbol<T>(name, type != null ? type.clone() : null, location, referenceType,
+                staticallyImported, actions);
+        copy.setInnerScope(scopes);
+        return copy;
+    }
+
+    /**
+     * Creates an unshared copy of this symbol in another location.
+     *
+     * @param actions
+     *            actions of the copy
+     * @param location
+     *            location of the copy or null to keep the location of this symbol
+     * @return the new symbol
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    Symbol<?> copy(List<SymbolAction> actions, Node location) {
+        if (location == null) {
+            return copy(actions);
+        }
+        Symbol copy = new Symbol(name, type != null ? type.clone() : null, location, referenceType, staticallyImported,
+                actions);
+        copy.setInnerScope(scopes);
+        return copy;
+    }
+
     public List<SymbolAction> getActions() {
         return actions;
     }
 
     public void invokeActions(SymbolTable table, SymbolEvent event, SymbolReference reference) throws Exception {
         if (actions != null) {
-            for (SymbolAction action : actions) {
-                action.execute(this, table, event, reference);
+            if (subscribers == null) {
+                subscribers = new SymbolActions(actions);
             }
+            subscribers.invoke(this, table, event, reference);
         }
     }
 
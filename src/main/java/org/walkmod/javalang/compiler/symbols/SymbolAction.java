@@ -14,10 +14,50 @@
  */
 package org.walkmod.javalang.compiler.symbols;
 
+import java.util.EnumSet;
+
 import org.walkmod.javalang.ast.SymbolReference;
 
 public abstract class SymbolAction {
 
+    /** events whose method is overridden by each action class */
+    private static final ClassValue<EnumSet<SymbolEvent>> HANDLED_EVENTS = new ClassValue<EnumSet<SymbolEvent>>() {
+        @Override
+        protected EnumSet<SymbolEvent> computeValue(Class<?> type) {
+            EnumSet<SymbolEvent> events = EnumSet.noneOf(SymbolEvent.class);
+            if (isOverridden(type, "doPush", Symbol.class, SymbolTable.class)) {
+                events.add(SymbolEvent.PUSH);
+            }
+            if (isOverridden(type, "doPop", Symbol.class, SymbolTable.class)) {
+                events.add(SymbolEvent.POP);
+            }
+            if (isOverridden(type, "doRead", Symbol.class, SymbolTable.class, SymbolReference.class)) {
+                events.add(SymbolEvent.READ);
+            }
+            if (isOverridden(type, "doWrite", Symbol.class, SymbolTable.class, SymbolReference.class)) {
+                events.add(SymbolEvent.WRITE);
+            }
+            return events;
+        }
+    };
+
+    private static boolean isOverridden(Class<?> type, String method, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(method, parameterTypes).getDeclaringClass() != SymbolAction.class;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param event
+     *            symbol event
+     * @return if the action does something on the event
+     */
+    public final boolean handles(SymbolEvent event) {
+        return HANDLED_EVENTS.get(getClass()).contains(event);
+    }
+
     public final void execute(Symbol<?> symbol, SymbolTable table, SymbolEvent event, SymbolReference reference)
             throws Exception {
         if (event.equals(SymbolEvent.PUSH)) {
@@ -31,6 +71,12 @@ public abstract class SymbolAction {
         }
     }
 
+    /**
+     * Called when a symbol is added to the symbol table. The primitive types, the types of
+     * java.lang and the types of the imported packages are shared by all the compilation units of
+     * an analysis context, so this method is only called for the ones that a compilation unit looks
+     * up, when they are first looked up.
+     */
     public void doPush(Symbol<?> symbol, SymbolTable table) throws Exception {}
 
     public void doPop(Symbol<?> symbol, SymbolTable table) throws Exception {}
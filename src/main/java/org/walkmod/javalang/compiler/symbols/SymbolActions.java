@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2015 Raquel Pau and Albert Coroleu.
+ *
+ * Walkmod is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Walkmod is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Walkmod. If
+ * not, see <http://www.gnu.org/licenses/>.
+ */
+package org.walkmod.javalang.compiler.symbols;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.walkmod.javalang.ast.SymbolReference;
+
+/**
+ * Dispatches the events of a list of actions only to the actions that handle them (see
+ * {@link SymbolAction#handles(SymbolEvent)}). The subscribers of each event are kept in an array
+ * that is rebuilt when actions are added to the list. The lists of actions are only appended to
+ * while they are in use (see {@link Scope#addActions(List)}), so the size of the list is the
+ * version of its subscribers, and the actions of a list that is in use must not be replaced.
+ */
+final class SymbolActions {
+
+    private static final SymbolAction[] NONE = new SymbolAction[0];
+
+    private final List<SymbolAction> actions;
+
+    private SymbolAction[][] subscribers = null;
+
+    /* actions of the list when the subscribers were built */
+    private SymbolAction[] snapshot = NONE;
+
+    SymbolActions(List<SymbolAction> actions) {
+        this.actions = actions;
+    }
+
+    List<SymbolAction> getActions() {
+        return actions;
+    }
+
+    void invoke(Symbol<?> symbol, SymbolTable table, SymbolEvent event, SymbolReference reference)
+            throws Exception {
+        SymbolAction[] handlers = getSubscribers(event);
+        for (int i = 0; i < handlers.length; i++) {
+            handlers[i].execute(symbol, table, event, reference);
+        }
+    }
+
+    private SymbolAction[] getSubscribers(SymbolEvent event) {
+        if (subscribers == null || !isUpToDate()) {
+            snapshot = actions.toArray(NONE);
+            SymbolEvent[] events = SymbolEvent.values();
+            subscribers = new SymbolAction[events.length][];
+            for (SymbolEvent current : events) {
+                List<SymbolAction> handlers = new ArrayList<SymbolAction>(snapshot.length);
+                for (SymbolAction action : snapshot) {
+                    if (action.handles(current)) {
+                        handlers.add(action);
+                    }
+                }
+                subscribers[current.ordinal()] = handlers.isEmpty() ? NONE : handlers.toArray(NONE);
+            }
+        }
+        return subscribers[event.ordinal()];
+    }
+
+    private boolean isUpToDate() {
+        return actions.size() == snapshot.length;
+    }
+}
@@ -43,6 +43,13 @@ public class SymbolTable {
 
     private List<SymbolAction> actions;
 
+    private SymbolActions subscribers = null;
+
+    private final ScopeIndex index = new ScopeIndex();
+
+    /** pushed scopes whose names are not indexed, because they are indexed by another table */
+    private int unindexedScopes = 0;
+
     public SymbolTable() {
         indexStructure = new Stack<Scope>();
         setSymbolFactory(new DefaultSymbolFactory());
@@ -50,6 +57,7 @@ public class SymbolTable {
 
     public void setActions(List<SymbolAction> actions) {
         this.actions = actions;
+        this.subscribers = actions != null ? new SymbolActions(actions) : null;
     }
 
     public Stack<Scope> getScopes() {
@@ -79,6 +87,9 @@ public class SymbolTable {
 
     public Symbol<?> findSymbol(String symbolName, SymbolType symbolScope, SymbolType[] args,
             List<Predicate<?>> predicates, ReferenceType... referenceType) {
+        if (symbolScope == null && unindexedScopes == 0) {
+            return findIndexedSymbol(symbolName, args, predicates, referenceType);
+        }
         int j = indexStructure.size() - 1;
         Symbol<?> result = null;
         if (symbolScope != null) {
@@ -147,6 +158,63 @@ public class SymbolTable {
         return result;
     }
 
+    /**
+     * Resolves an unqualified name like {@link #findSymbol(String, SymbolType, SymbolType[], List,
+     * ReferenceType...)}, but it only visits the scopes that declare the name or inherit symbols
+     * from a super type.
+     */
+    private Symbol<?> findIndexedSymbol(String symbolName, SymbolType[] args, List<Predicate<?>> predicates,
+            ReferenceType... referenceType) {
+        Symbol<?> result = null;
+        ScopeIndex.Levels declared = index.get(symbolName);
+        ScopeIndex.Levels inherited = index.get("super");
+        int i = declared != null ? declared.size() - 1 : -1;
+        int k = inherited != null ? inherited.size() - 1 : -1;
+        int level = Integer.MAX_VALUE;
+        while (result == null && (i >= 0 || k >= 0)) {
+            int next = i >= 0 ? declared.get(i) : -1;
+            if (k >= 0 && inherited.get(k) > next) {
+                next = inherited.get(k);
+            }
+            if (i >= 0 && declared.get(i) == next) {
+                i--;
+            }
+            if (k >= 0 && inherited.get(k) == next) {
+                k--;
+            }
+            level = next;
+            result = indexStructure.get(level).findSymbol(symbolName, true, null, args, predicates, referenceType);
+        }
+        if (result == null && level != 0 && !indexStructure.isEmpty()) {
+            // the root scope copies the symbols of its parents when they are looked up
+            Scope root = indexStructure.get(0);
+            if (root.hasParents()) {
+                result = root.findSymbol(symbolName, true, null, args, predicates, referenceType);
+            }
+        }
+        if (result == null) {
+            Scope currentTypeScope = null;
+            int j = indexStructure.size() - 1;
+            while (j >= 0 && currentTypeScope == null) {
+                Scope scope = indexStructure.get(j);
+                Symbol<?> rootSymbol = scope.getRootSymbol();
+                if (rootSymbol != null && rootSymbol.getLocation() instanceof SymbolDataAware<?>
+                        && !(rootSymbol instanceof MethodSymbol)) {
+                    currentTypeScope = scope;
+                }
+                j--;
+            }
+            if (currentTypeScope != null) {
+                result = currentTypeScope.findSymbol(symbolName, false, null, args, predicates, referenceType);
+            }
+        }
+        return result;
+    }
+
+    void indexName(String name, int level) {
+        index.add(name, level);
+    }
+
     public List<Symbol<?>> findSymbolsByType(String typeName, ReferenceType referenceType) {
         List<Symbol<?>> result = new LinkedList<Symbol<?>>();
         int i = indexStructure.size() - 1;
@@ -183,24 +251,31 @@ public class SymbolTable {
     private void invokeActions(Scope scope, Symbol<?> s, SymbolEvent event, SymbolReference reference)
             throws Exception {
         if (s != null) {
-            if (actions != null) {
-                for (SymbolAction action : actions) {
-                    action.execute(s, this, event, reference);
-                }
+            if (subscribers != null) {
+                subscribers.invoke(s, this, event, reference);
             }
 
             if (scope != null) {
-                List<SymbolAction> scopeActions = scope.getActions();
-                if (scopeActions != null) {
-                    for (SymbolAction action : scopeActions) {
-                        action.execute(s, this, event, reference);
-                    }
-                }
+                scope.invokeActions(s, this, event, reference);
             }
             s.invokeActions(this, event, reference);
         }
     }
 
+    /**
+     * Sends the PUSH events of the symbols that a pushed scope copies from its parents when they
+     * are looked up, see {@link Scope#addParent(Scope, List)}.
+     */
+    void pushCopiedSymbols(Scope scope, List<Symbol<?>> copies) {
+        for (Symbol<?> symbol : copies) {
+            try {
+                invokeActions(scope, symbol, SymbolEvent.PUSH, null);
+            } catch (Exception e) {
+                throw new SymbolTableException(e);
+            }
+        }
+    }
+
     public Symbol<?> lookUpSymbolForRead(String symbolName, SymbolReference reference, ReferenceType... referenceType) {
         return lookUpSymbolForRead(symbolName, reference, null, null, referenceType);
     }
@@ -405,7 +480,7 @@ public class SymbolTable {
     public Scope popScope(boolean silent) {
         Scope scope = indexStructure.peek();
         if (!silent) {
-            List<Symbol<?>> symbols = scope.getSymbols();
+            List<Symbol<?>> symbols = scope.getLocalSymbols();
             for (Symbol<?> symbol : symbols) {
                 try {
                     invokeActions(scope, symbol, SymbolEvent.POP, null);
@@ -414,6 +489,15 @@ public class SymbolTable {
                 }
             }
         }
+        int level = indexStructure.size() - 1;
+        if (scope.getIndexingTable() == this && scope.getLevel() == level) {
+            for (String name : scope.getNames()) {
+                index.remove(name, level);
+            }
+            scope.setIndexingTable(null, -1);
+        } else {
+            unindexedScopes--;
+        }
         return indexStructure.pop();
     }
 
@@ -433,6 +517,16 @@ public class SymbolTable {
         if (scope == null) {
             scope = new Scope(actions);
         }
+        if (scope.getIndexingTable() == null) {
+            int level = indexStructure.size();
+            scope.setIndexingTable(this, level);
+            for (String name : scope.getNames()) {
+                index.add(name, level);
+            }
+        } else {
+            // it is already pushed, so the lookups visit all the scopes until it is popped
+            unindexedScopes++;
+        }
         indexStructure.push(scope);
 
     }
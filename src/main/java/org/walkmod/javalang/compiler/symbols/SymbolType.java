@@ -34,12 +34,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
+import java.util.TreeSet;
 
 import org.walkmod.javalang.ast.ConstructorSymbolData;
 import org.walkmod.javalang.ast.FieldSymbolData;
 import org.walkmod.javalang.ast.MethodSymbolData;
 import org.walkmod.javalang.ast.SymbolData;
 import org.walkmod.javalang.compiler.reflection.ClassInspector;
+import org.walkmod.javalang.compiler.types.AnalysisContext;
 import org.walkmod.javalang.compiler.types.TypeNotFoundException;
 import org.walkmod.javalang.compiler.types.Types;
 import org.walkmod.javalang.compiler.types.TypesLoaderVisitor;
@@ -86,6 +88,38 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
 
     private Constructor<?> constructor = null;
 
+    /** the type parameters of the class are resolved when they are first read */
+    private boolean lazyGenerics = false;
+
+    /**
+     * shared instances (see {@link #rawTypeOf(Class)} and {@link #asImmutable()}) can not be
+     * modified and their children are frozen too
+     */
+    private boolean frozen = false;
+
+    /** fingerprint of a frozen type, which can not change */
+    private volatile Object[] frozenFingerprint = null;
+
+    private static final Object FINGERPRINT_SEPARATOR = new Object();
+
+    private static final Object FINGERPRINT_CYCLE = new Object();
+
+    private static final Object FINGERPRINT_LAZY = new Object();
+
+    private static final ClassValue<SymbolType> RAW_TYPES = new ClassValue<SymbolType>() {
+        @Override
+        protected SymbolType computeValue(Class<?> type) {
+            if (type.isArray()) {
+                // arrays are keyed by their class, that is, the binary name of the element and the
+                // dimensions, but they are represented like valueOf does: with the element name
+                return RAW_TYPES.get(elementOf(type)).withArrayCount(resolveDimmensions(type));
+            }
+            SymbolType result = new SymbolType(type);
+            result.frozen = true;
+            return result;
+        }
+    };
+
     private SymbolType(Marker marker, String name) {
         this.marker = marker;
         this.name = name;
@@ -193,7 +227,7 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
         this.arrayCount = arrayCount;
     }
 
-    private int resolveDimmensions(Class<?> clazz) {
+    private static int resolveDimmensions(Class<?> clazz) {
         if (clazz.isArray()) {
             Class<?> component = clazz.getComponentType();
             return resolveDimmensions(component) + 1;
@@ -234,6 +268,7 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
     }
 
     public void setClazz(Class<?> clazz) {
+        checkNotFrozen();
         this.clazz = clazz;
     }
 
@@ -248,6 +283,7 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
      */
     @Deprecated
     public void setName(String name) {
+        checkNotFrozen();
         this.name = name;
     }
 
@@ -258,6 +294,7 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
     @SuppressWarnings("unchecked")
     @Override
     public List<SymbolType> getParameterizedTypes() {
+        resolveLazyGenerics();
         if (parameterizedTypes == null) {
             if (upperBounds != null && !upperBounds.isEmpty()) {
                 List<SymbolType> params = upperBounds.get(0).getParameterizedTypes();
@@ -285,6 +322,7 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
     }
 
     public void setParameterizedTypes(List<SymbolType> parameterizedTypes) {
+        checkNotFrozen();
         /*
            this invariant is considered to be correct but some code needs to be fixed that
            breaks the invariant before general use.
@@ -308,6 +346,14 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
         this.parameterizedTypes = parameterizedTypes != null
                 ? Collections.unmodifiableList(new ArrayList<>(parameterizedTypes))
                 : null;
+        this.lazyGenerics = false;
+    }
+
+    private void resolveLazyGenerics() {
+        if (lazyGenerics) {
+            lazyGenerics = false;
+            setParameterizedTypes(resolveGenerics(getClazz()));
+        }
     }
 
     public int getArrayCount() {
@@ -315,6 +361,7 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
     }
 
     public void setArrayCount(int arrayCount) {
+        checkNotFrozen();
         this.arrayCount = arrayCount;
     }
 
@@ -328,6 +375,7 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
      * @param templateVariable name of the template variable (e.g "T")
      */
     public void setTemplateVariable(String templateVariable) {
+        checkNotFrozen();
         this.typeVariable = templateVariable;
     }
 
@@ -335,8 +383,24 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
         return typeVariable;
     }
 
+    /**
+     * @return if this instance is shared and must be cloned to be modified
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("The symbol type " + name + " is shared. Clone it to modify it");
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
         if (o instanceof SymbolType) {
             SymbolType aux = (SymbolType) o;
             String auxName = aux.getName();
@@ -384,6 +448,7 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
     private boolean isParameterizedTypesCompatible(SymbolType other) {
         boolean isCompatible = true;
         List<SymbolType> otherParams = other.getParameterizedTypes();
+        resolveLazyGenerics();
         if (parameterizedTypes != null && otherParams != null) {
             Set<Type> paramTypes = ClassInspector.getEquivalentParametrizableClasses(other.getClazz());
             Iterator<Type> paramTypesIt = paramTypes.iterator();
@@ -413,7 +478,7 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
                 int i = 0;
                 while (paramTypesIt.hasNext() && !found) {
                     Type currentType = paramTypesIt.next();
-                    SymbolType st = SymbolType.valueOf(currentType, otherMap);
+                    SymbolType st = SymbolType.immutableValueOf(currentType, otherMap);
 
                     found = Types.isCompatible(st.getClazz(), getClazz());
                     if (isCompatible) {
@@ -499,6 +564,111 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
     }
 
     public boolean isCompatible(SymbolType other) {
+        if (other == this) {
+            return true;
+        }
+        if (other == null || isTemplateVariable() || isRaw()) {
+            // only the classes and the array dimensions are compared
+            return isCompatibleWith(other);
+        }
+        Object key;
+        if (frozen && other.frozen) {
+            // immutable types keep their state, so they are compared by reference
+            key = new FrozenPair(this, other);
+        } else {
+            List<Object> fingerprints = new ArrayList<>();
+            fingerprint(fingerprints);
+            fingerprints.add(FINGERPRINT_SEPARATOR);
+            other.fingerprint(fingerprints);
+            key = fingerprints;
+        }
+        CompatibilityCache cache = AnalysisContext.getCurrent().getCompatibilityCache();
+        Boolean cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        boolean isCompatible = isCompatibleWith(other);
+        cache.put(key, isCompatible);
+        return isCompatible;
+    }
+
+    /**
+     * Appends the structural fingerprint of this type to a key: its marker, name, type variable,
+     * array dimensions, class and the fingerprints of its type arguments and bounds. Two types with
+     * equal fingerprints are compatible with the same types. The generics of a lazy type are not
+     * loaded: the lazy type is identified by its name.
+     *
+     * @param key
+     *            key to append the fingerprint to
+     */
+    public void fingerprint(List<Object> key) {
+        if (!frozen) {
+            fingerprint(key, new ArrayList<SymbolType>());
+            return;
+        }
+        Object[] result = frozenFingerprint;
+        if (result == null) {
+            List<Object> aux = new ArrayList<Object>();
+            fingerprint(aux, new ArrayList<SymbolType>());
+            result = aux.toArray();
+            frozenFingerprint = result;
+        }
+        Collections.addAll(key, result);
+    }
+
+    /**
+     * @return if the type has no type arguments and no bounds, so its compatibility only depends on
+     *         the classes and the array dimensions of both types.
+     */
+    private boolean isRaw() {
+        return !lazyGenerics && parameterizedTypes == null && upperBounds == null && lowerBounds == null;
+    }
+
+    /**
+     * Appends the state that {@link #isCompatible(SymbolType)} depends on. The recursive
+     * references of generic types are appended as the depth of the referenced type.
+     */
+    void fingerprint(List<Object> key, List<SymbolType> visited) {
+        for (int i = 0; i < visited.size(); i++) {
+            if (visited.get(i) == this) {// yes, by reference
+                key.add(FINGERPRINT_CYCLE);
+                key.add(i);
+                return;
+            }
+        }
+        key.add(marker);
+        key.add(name);
+        key.add(typeVariable);
+        key.add(arrayCount);
+        key.add(clazz);
+        if (lazyGenerics) {
+            // the generics are resolved from the name
+            key.add(FINGERPRINT_LAZY);
+            return;
+        }
+        visited.add(this);
+        fingerprint(key, visited, parameterizedTypes);
+        fingerprint(key, visited, upperBounds);
+        fingerprint(key, visited, lowerBounds);
+        visited.remove(visited.size() - 1);
+    }
+
+    private static void fingerprint(List<Object> key, List<SymbolType> visited, List<SymbolType> types) {
+        if (types == null) {
+            key.add(null);
+        } else {
+            key.add(types.size());
+            for (SymbolType type : types) {
+                if (type == null) {
+                    key.add(null);
+                } else {
+                    type.fingerprint(key, visited);
+                }
+            }
+        }
+    }
+
+    private boolean isCompatibleWith(SymbolType other) {
         boolean isCompatible = true;
 
         if (!isTemplateVariable()) {
@@ -565,6 +735,7 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
 
     private void addString(StringBuffer result, Deque<SymbolType> visited) {
         result.append(name);
+        resolveLazyGenerics();
         if (parameterizedTypes != null && !visited.contains(this)) {
             visited.push(this);
             result.append("<");
@@ -590,9 +761,162 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
      * @return Returns a copy of this symbol type replacing the name
      * */
     public SymbolType withName(String name) {
+        if (frozen) {
+            SymbolType result = derive();
+            result.name = name;
+            result.clazz = null;
+            return result;
+        }
         return clone(marker, name, arrayCount, typeVariable, null, null);
     }
 
+    /**
+     * Returns a copy with other array dimensions. The copy of an immutable type is immutable and it
+     * shares the children of the original one.
+     * @param arrayCount the array dimensions
+     * @return the symbol type with the array dimensions
+     */
+    public SymbolType withArrayCount(int arrayCount) {
+        if (frozen) {
+            if (this.arrayCount == arrayCount) {
+                return this;
+            }
+            SymbolType result = derive();
+            result.arrayCount = arrayCount;
+            return result;
+        }
+        return cloneAsArray(arrayCount);
+    }
+
+    /**
+     * Returns a copy with other type arguments. The copy of an immutable type is immutable and it
+     * shares the children of the original one.
+     * @param parameterizedTypes the type arguments
+     * @return the symbol type with the type arguments
+     */
+    public SymbolType withParameterizedTypes(List<SymbolType> parameterizedTypes) {
+        if (frozen) {
+            if (parameterizedTypes == null && this.parameterizedTypes == null) {
+                return this;
+            }
+            SymbolType result = derive();
+            result.parameterizedTypes = immutableList(parameterizedTypes);
+            return result;
+        }
+        SymbolType result = clone();
+        result.setParameterizedTypes(parameterizedTypes);
+        return result;
+    }
+
+    /**
+     * Returns a copy that references a method. The copy of an immutable type is immutable and it
+     * shares the children of the original one.
+     * @param method the referenced method
+     * @return the symbol type of the method
+     */
+    public SymbolType withMethod(Method method) {
+        if (frozen) {
+            SymbolType result = derive();
+            result.method = method;
+            return result;
+        }
+        SymbolType result = clone();
+        result.setMethod(method);
+        return result;
+    }
+
+    /**
+     * Returns a copy that represents a type variable. The copy of an immutable type is immutable
+     * and it shares the children of the original one.
+     * @param typeVariable the name of the type variable
+     * @return the symbol type of the type variable
+     */
+    public SymbolType withTemplateVariable(String typeVariable) {
+        if (frozen) {
+            SymbolType result = derive();
+            result.typeVariable = typeVariable;
+            return result;
+        }
+        return cloneAsTypeVariable(typeVariable);
+    }
+
+    /**
+     * Returns an immutable version of this type: this type if it is already immutable or a frozen
+     * copy. The derivations of immutable types (the <code>with</code> methods and
+     * {@link #refactor(Map)}) only allocate the nodes that change and share the rest, and their
+     * {@link #clone()} returns a modifiable copy.
+     * @return an immutable symbol type
+     */
+    public SymbolType asImmutable() {
+        if (frozen) {
+            return this;
+        }
+        SymbolType result = clone();
+        result.freezeTree();
+        return result;
+    }
+
+    /**
+     * Returns a copy that the caller can modify, or this type if it is immutable. Immutable types
+     * are shared instead of copied, and they are changed with the <code>with</code> methods.
+     * @return this immutable type or a modifiable copy
+     */
+    public SymbolType cloneIfMutable() {
+        if (frozen) {
+            return this;
+        }
+        return clone();
+    }
+
+    private void freezeTree() {
+        if (!frozen) {
+            resolveLazyGenerics();
+            frozen = true;
+            freezeAll(parameterizedTypes);
+            freezeAll(upperBounds);
+            freezeAll(lowerBounds);
+        }
+    }
+
+    private static void freezeAll(List<SymbolType> types) {
+        if (types != null) {
+            for (SymbolType type : types) {
+                if (type != null) {
+                    type.freezeTree();
+                }
+            }
+        }
+    }
+
+    private static List<SymbolType> immutableList(List<SymbolType> types) {
+        if (types == null) {
+            return null;
+        }
+        List<SymbolType> result = new ArrayList<>(types.size());
+        for (SymbolType type : types) {
+            result.add(type != null ? type.asImmutable() : null);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Shallow copy of an immutable type, that shares its (immutable) children.
+     */
+    private SymbolType derive() {
+        SymbolType result = new SymbolType(marker, name);
+        result.clazz = clazz;
+        result.arrayCount = arrayCount;
+        result.typeVariable = typeVariable;
+        result.method = method;
+        result.field = field;
+        result.constructor = constructor;
+        result.parameterizedTypes = parameterizedTypes;
+        result.upperBounds = upperBounds;
+        result.lowerBounds = lowerBounds;
+        result.frozen = true;
+        return result;
+    }
+
     public SymbolType clone() {
         return clone(null, null);
     }
@@ -640,6 +964,7 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
         result.setField(field);
         result.setMethod(method);
         result.typeVariable = typeVariable;
+        result.lazyGenerics = lazyGenerics;
         if (parent == null) {
             parent = new Stack<>();
             created = new Stack<>();
@@ -665,7 +990,7 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
                     list.add(((SymbolType) type).clone(parent, created));
                 }
                 result.setParameterizedTypes(list);
-            } else {
+            } else if (!lazyGenerics) {
                 result.setParameterizedTypes(null);
             }
             if (upperBounds != null) {
@@ -713,7 +1038,7 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
         if (variableName.equals(typeVariable)) {
             return this;
         } else {
-
+            resolveLazyGenerics();
             if (parameterizedTypes != null) {
 
                 Iterator<SymbolType> itV = visited.iterator();
@@ -766,6 +1091,45 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
         return new SymbolType(className, arrayCount);
     }
 
+    /**
+     * Builds the symbol of a class from its binary name without loading it. The class and its
+     * type parameters are resolved the first time they are required, so the result is equivalent
+     * to {@link #SymbolType(Class)}.
+     * @param className the binary name of a class (e.g. java.util.Map$Entry)
+     * @return a SymbolType that represents the class.
+     */
+    public static SymbolType lazyClassOf(final String className) {
+        SymbolType result = new SymbolType(className);
+        result.lazyGenerics = true;
+        return result;
+    }
+
+    /**
+     * Returns the symbol of a class without type parameters. The same frozen instance is returned
+     * for each class, so it can not be modified: the callers that need to modify it must clone it.
+     * Arrays are represented by the name of their element class and their dimensions.
+     * @param clazz the class (primitive types and arrays included)
+     * @return a shared SymbolType that represents the class or a new one if the class (or the
+     *         element class of the array) has type parameters.
+     */
+    public static SymbolType rawTypeOf(final Class<?> clazz) {
+        Class<?> element = elementOf(clazz);
+        if (element.getTypeParameters().length > 0) {
+            SymbolType result = new SymbolType(element);
+            result.setArrayCount(resolveDimmensions(clazz));
+            return result;
+        }
+        return RAW_TYPES.get(clazz);
+    }
+
+    private static Class<?> elementOf(Class<?> clazz) {
+        Class<?> element = clazz;
+        while (element.isArray()) {
+            element = element.getComponentType();
+        }
+        return element;
+    }
+
     /**
      * Build symbol representing an enum constant class.
      * @param name is the enumeration class name
@@ -1223,10 +1587,102 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
         return returnType;
     }
 
+    /**
+     * Converts a reflective type into a modifiable symbol type, that does not share any node with
+     * the type mapping, except if the type is a type variable, whose value is returned as it is.
+     * The callers that do not modify the type should use {@link #immutableValueOf(Type, Map)},
+     * that does not copy it.
+     */
     public static SymbolType valueOf(Type type, Map<String, SymbolType> typeMapping) throws InvalidTypeException {
+        if (type instanceof TypeVariable) {
+            // it is a lookup of the mapping, whose values are returned as they are
+            return valueOf(type, null, new HashMap<String, SymbolType>(), typeMapping);
+        }
+        SymbolType result = immutableValueOf(type, typeMapping);
+        return result != null ? result.clone() : null;
+    }
+
+    /**
+     * Converts a reflective type into a symbol type like {@link #valueOf(Type, Map)}, but returns
+     * the immutable type of the conversion cache, which is shared by all the conversions of the
+     * type with the same mapping. The value of a type variable is returned as it is. In both cases,
+     * the result must not be modified.
+     */
+    public static SymbolType immutableValueOf(Type type, Map<String, SymbolType> typeMapping)
+            throws InvalidTypeException {
+        if (type instanceof TypeVariable) {
+            return valueOf(type, null, new HashMap<String, SymbolType>(), typeMapping);
+        }
+        List<Object> key = getConversionKey(type, typeMapping);
+        TypeConversionCache cache = AnalysisContext.getCurrent().getTypeConversionCache();
+        SymbolType result = cache.get(key);
+        if (result == null) {
+            result = valueOf(type, null, new HashMap<String, SymbolType>(), typeMapping);
+            if (result != null) {
+                result = result.asImmutable();
+                cache.put(key, result);
+            }
+        }
+        return result;
+    }
 
-        return valueOf(type, null, new HashMap<String, SymbolType>(), typeMapping);
+    /**
+     * The conversion of a type only depends on the mapping of the type variables that are
+     * reachable from it, so the key contains the type and the fingerprints of those mappings.
+     */
+    private static List<Object> getConversionKey(Type type, Map<String, SymbolType> typeMapping) {
+        List<Object> key = new ArrayList<>();
+        key.add(type);
+        Set<String> variables = new TreeSet<>();
+        collectTypeVariables(type, variables, new HashSet<Type>());
+        for (String variable : variables) {
+            key.add(variable);
+            SymbolType value = typeMapping != null ? typeMapping.get(variable) : null;
+            if (value == null) {
+                key.add(null);
+            } else {
+                value.fingerprint(key);
+            }
+        }
+        return key;
+    }
 
+    private static void collectTypeVariables(Type type, Set<String> variables, Set<Type> visited) {
+        if (type == null || !visited.add(type)) {
+            return;
+        }
+        if (type instanceof Class<?>) {
+            Class<?> clazz = (Class<?>) type;
+            while (clazz.isArray()) {
+                clazz = clazz.getComponentType();
+            }
+            for (TypeVariable<?> tv : clazz.getTypeParameters()) {
+                collectTypeVariables(tv, variables, visited);
+            }
+        } else if (type instanceof TypeVariable) {
+            TypeVariable<?> tv = (TypeVariable<?>) type;
+            variables.add(tv.getName());
+            for (Type bound : tv.getBounds()) {
+                collectTypeVariables(bound, variables, visited);
+            }
+        } else if (type instanceof ParameterizedType) {
+            ParameterizedType pt = (ParameterizedType) type;
+            collectTypeVariables(pt.getRawType(), variables, visited);
+            collectTypeVariables(pt.getOwnerType(), variables, visited);
+            for (Type argument : pt.getActualTypeArguments()) {
+                collectTypeVariables(argument, variables, visited);
+            }
+        } else if (type instanceof GenericArrayType) {
+            collectTypeVariables(((GenericArrayType) type).getGenericComponentType(), variables, visited);
+        } else if (type instanceof WildcardType) {
+            WildcardType wt = (WildcardType) type;
+            for (Type bound : wt.getUpperBounds()) {
+                collectTypeVariables(bound, variables, visited);
+            }
+            for (Type bound : wt.getLowerBounds()) {
+                collectTypeVariables(bound, variables, visited);
+            }
+        }
     }
 
     public Method getMethod() {
@@ -1234,6 +1690,7 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
     }
 
     public void setMethod(Method method) {
+        checkNotFrozen();
         this.method = method;
     }
 
@@ -1269,12 +1726,16 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
             }
         }
         SymbolType st = SymbolType.valueOf(type, typeMapping);
-        st.method = method;
-
+        if (type instanceof TypeVariable) {
+            // the value of the mapping is returned as it is, so it is not modified
+            return st.withMethod(method);
+        }
+        st.setMethod(method);
         return st;
     }
 
     public void setField(Field field) {
+        checkNotFrozen();
         this.field = field;
     }
 
@@ -1321,6 +1782,7 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
     }
 
     public void setConstructor(Constructor<?> constructor) {
+        checkNotFrozen();
         this.constructor = constructor;
     }
 
@@ -1357,7 +1819,10 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
             return st;
         } else {
             SymbolType aux;
-            if (this.parameterizedTypes != null) {
+            resolveLazyGenerics();
+            if (frozen && this.parameterizedTypes != null) {
+                aux = refactorImmutable(variable, st, dynamicVar);
+            } else if (this.parameterizedTypes != null) {
                 aux = this.clone();
                 List<SymbolType> parameterizedTypes = new LinkedList<>();
                 for (SymbolType param : this.parameterizedTypes) {
@@ -1375,16 +1840,46 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
 
     public SymbolType refactorToTypeVariable(String typeVariable, SymbolType st, boolean dynamicVar) {
         SymbolType refactor = refactor(typeVariable, st, dynamicVar);
+        if (refactor.isFrozen()) {
+            return refactor.withTemplateVariable(typeVariable);
+        }
         refactor.setTemplateVariable(typeVariable);
         return refactor;
     }
 
+    /**
+     * Refactors the type arguments of an immutable type. Only the nodes that contain the variable
+     * are copied.
+     */
+    private SymbolType refactorImmutable(String variable, SymbolType st, boolean dynamicVar) {
+        List<SymbolType> refactored = null;
+        for (int i = 0; i < parameterizedTypes.size(); i++) {
+            SymbolType param = parameterizedTypes.get(i);
+            SymbolType aux = param.refactor_rec(variable, st, dynamicVar);
+            if (aux != param && refactored == null) {
+                refactored = new ArrayList<>(parameterizedTypes.subList(0, i));
+            }
+            if (refactored != null) {
+                refactored.add(aux != null ? aux.asImmutable() : null);
+            }
+        }
+        if (refactored == null) {
+            return this;
+        }
+        SymbolType result = derive();
+        result.parameterizedTypes = Collections.unmodifiableList(refactored);
+        return result;
+    }
+
     public SymbolType refactor(String variable, SymbolType st, boolean dynamicVar) {
         if (variable.equals(typeVariable) && dynamicVar) {
             return st;
         } else {
             SymbolType aux;
-            if (this.parameterizedTypes != null) {
+            resolveLazyGenerics();
+            if (frozen && this.parameterizedTypes != null) {
+                aux = refactorImmutable(variable, st, dynamicVar);
+            } else if (this.parameterizedTypes != null) {
                 aux = this.clone();
                 List<SymbolType> parameterizedTypes = new LinkedList<>();
                 for (SymbolType param : this.parameterizedTypes) {
@@ -1436,4 +1931,33 @@ public class SymbolType implements SymbolData, MethodSymbolData, FieldSymbolData
         }
         return argClasses;
     }
+
+    /**
+     * Key of the compatibility of two immutable types, which is compared by reference.
+     */
+    private static final class FrozenPair {
+
+        private final SymbolType first;
+
+        private final SymbolType second;
+
+        FrozenPair(SymbolType first, SymbolType second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof FrozenPair)) {
+                return false;
+            }
+            FrozenPair other = (FrozenPair) o;
+            return first == other.first && second == other.second;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(first) + System.identityHashCode(second);
+        }
+    }
 }
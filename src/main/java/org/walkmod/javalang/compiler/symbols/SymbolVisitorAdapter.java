@@ -65,6 +65,7 @@ import org.walkmod.javalang.compiler.providers.SymbolActionProvider;
 import org.walkmod.javalang.compiler.providers.SymbolActionProviderAware;
 import org.walkmod.javalang.compiler.types.ScopeLoader;
 import org.walkmod.javalang.compiler.types.TypeVisitorAdapter;
+import org.walkmod.javalang.compiler.types.AnalysisContext;
 import org.walkmod.javalang.compiler.types.TypesLoaderVisitor;
 import org.walkmod.javalang.exceptions.NoSuchExpressionTypeException;
 import org.walkmod.javalang.visitors.VoidVisitorAdapter;
@@ -79,6 +80,8 @@ public class SymbolVisitorAdapter<A extends Map<String, Object>> extends VoidVis
 
     private ClassLoader classLoader;
 
+    private AnalysisContext analysisContext;
+
     private TypesLoaderVisitor<?> typeTable;
 
     private TypeVisitorAdapter<A> expressionTypeAnalyzer;
@@ -103,8 +106,37 @@ public class SymbolVisitorAdapter<A extends Map<String, Object>> extends VoidVis
         return classLoader;
     }
 
+    /**
+     * Uses the analysis context of a classloader and activates it for the current thread, so the
+     * symbol types can be resolved from this thread after the analysis. The default context of the
+     * other threads is not modified. Use {@link #setAnalysisContext(AnalysisContext)} to analyze
+     * several projects at the same time.
+     *
+     * @param classLoader
+     *            classloader of the analyzed project
+     */
     public void setClassLoader(ClassLoader classLoader) {
         this.classLoader = classLoader;
+        this.analysisContext = AnalysisContext.forClassLoader(classLoader);
+        analysisContext.activate();
+    }
+
+    public AnalysisContext getAnalysisContext() {
+        return analysisContext;
+    }
+
+    /**
+     * Sets the context (classloader, indexes and caches) of the analyzed project. It is activated
+     * for the current thread while each compilation unit is analyzed, so several projects can be
+     * analyzed at the same time from different threads. The default context is not modified, so
+     * the symbol types that are resolved after the analysis must be resolved with the context
+     * activated. If it is not set, the context of the current thread is used.
+     *
+     * @param analysisContext
+     *            context of the analyzed project
+     */
+    public void setAnalysisContext(AnalysisContext analysisContext) {
+        this.analysisContext = analysisContext;
     }
 
     public void setSymbolActions(List<SymbolAction> actions) {
@@ -130,35 +162,44 @@ public class SymbolVisitorAdapter<A extends Map<String, Object>> extends VoidVis
             actions.add(new ReferencesUpdaterAction());
         }
 
-        symbolTable = new SymbolTable();
-        symbolTable.setActions(actions);
-        symbolTable.pushScope();
-        typeTable = new TypesLoaderVisitor<A>(symbolTable, actionProvider, actions);
-        symbolResolver = ASTSymbolTypeResolver.getInstance();
-        symbolResolver.setSymbolTable(symbolTable);
-        typeTable.clear();
-        typeTable.setClassLoader(classLoader);
-
-        typeTable.visit(unit, null);
-        expressionTypeAnalyzer = new TypeVisitorAdapter<A>(symbolTable, this);
-        ScopeLoader scopeLoader = new ScopeLoader(typeTable, expressionTypeAnalyzer, actionProvider);
-        PackageDeclaration pkg = unit.getPackage();
-        if (pkg != null) {
-            pkg.accept(this, arg);
+        AnalysisContext context = analysisContext;
+        if (context == null) {
+            context = AnalysisContext.getCurrent();
         }
-        if (unit.getTypes() != null) {
-
-            for (TypeDeclaration typeDeclaration : unit.getTypes()) {
-                //System.out.println("type: "+typeDeclaration.getName());
-                typeDeclaration.accept(scopeLoader, symbolTable);
+        AnalysisContext previous = context.activate();
+        try {
+            symbolTable = new SymbolTable();
+            symbolTable.setActions(actions);
+            symbolTable.pushScope();
+            typeTable = new TypesLoaderVisitor<A>(symbolTable, actionProvider, actions);
+            symbolResolver = ASTSymbolTypeResolver.getInstance();
+            symbolResolver.setSymbolTable(symbolTable);
+            typeTable.clear();
+            typeTable.setAnalysisContext(context);
+
+            typeTable.visit(unit, null);
+            expressionTypeAnalyzer = new TypeVisitorAdapter<A>(symbolTable, this);
+            ScopeLoader scopeLoader = new ScopeLoader(typeTable, expressionTypeAnalyzer, actionProvider);
+            PackageDeclaration pkg = unit.getPackage();
+            if (pkg != null) {
+                pkg.accept(this, arg);
             }
+            if (unit.getTypes() != null) {
 
-            for (TypeDeclaration typeDeclaration : unit.getTypes()) {
-                typeDeclaration.accept(this, arg);
+                for (TypeDeclaration typeDeclaration : unit.getTypes()) {
+                    //System.out.println("type: "+typeDeclaration.getName());
+                    typeDeclaration.accept(scopeLoader, symbolTable);
+                }
+
+                for (TypeDeclaration typeDeclaration : unit.getTypes()) {
+                    typeDeclaration.accept(this, arg);
+                }
             }
-        }
 
-        symbolTable.popScope();
+            symbolTable.popScope();
+        } finally {
+            AnalysisContext.restore(previous);
+        }
     }
 
     public void visit(NormalAnnotationExpr n, A arg) {
@@ -553,11 +594,16 @@ public class SymbolVisitorAdapter<A extends Map<String, Object>> extends VoidVis
         if (id != null) {
             int arrayCount = id.getArrayCount();
             if (arrayCount > 0) {
-                type.setArrayCount(type.getArrayCount() + arrayCount);
+                type = type.withArrayCount(type.getArrayCount() + arrayCount);
             }
         }
         if (n.isVarArgs()) {
-            type.setArrayCount(type.getArrayCount() + 1);
+            type = type.withArrayCount(type.getArrayCount() + 1);
+        }
+        if (ptype != null) {
+            ptype.setSymbolData(type);
+        } else {
+            n.setSymbolData(type);
         }
         List<SymbolAction> actions = null;
         if (actionProvider != null) {
@@ -929,7 +975,7 @@ public class SymbolVisitorAdapter<A extends Map<String, Object>> extends VoidVis
             try {
                 symbolTable.lookUpSymbolForRead(msd.getName(),
                         n,
-                        SymbolType.valueOf(msd.getClazz(), new HashMap<String, SymbolType>()),
+                        SymbolType.immutableValueOf(msd.getClazz(), new HashMap<String, SymbolType>()),
                         paramTypes, ReferenceType.METHOD);
 
             } catch (Exception e) {
@@ -0,0 +1,312 @@
+/*
+ * Copyright (C) 2015 Raquel Pau and Albert Coroleu.
+ *
+ * Walkmod is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Walkmod is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Walkmod. If
+ * not, see <http://www.gnu.org/licenses/>.
+ */
+package org.walkmod.javalang.compiler.types;
+
+import java.lang.ref.WeakReference;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.walkmod.javalang.compiler.reflection.MethodTable;
+import org.walkmod.javalang.compiler.symbols.CompatibilityCache;
+import org.walkmod.javalang.compiler.symbols.Scope;
+import org.walkmod.javalang.compiler.symbols.TypeConversionCache;
+
+/**
+ * State of the analysis of a project: the classloader of its classpath, the index of the classpath
+ * elements and the caches of class metadata. Several contexts can be used at the same time, each
+ * one from its own threads.
+ *
+ * The context of the current thread is set with {@link #activate()}, and it is the one used by
+ * {@link TypesLoaderVisitor#getClassLoader()} and by the lazy class resolution of the symbol types.
+ * {@link TypesLoaderVisitor#setClassLoader(ClassLoader)} and
+ * {@link org.walkmod.javalang.compiler.symbols.SymbolVisitorAdapter#setClassLoader(ClassLoader)}
+ * activate the context of the classloader for the calling thread. The threads without an active
+ * context use the default one, which is only changed through {@link #setDefault(AnalysisContext)}.
+ */
+public class AnalysisContext {
+
+    private static final ThreadLocal<AnalysisContext> CURRENT = new ThreadLocal<AnalysisContext>();
+
+    /* contexts by application classloader, to keep them warm while the classloader is alive */
+    private static final Map<ClassLoader, AnalysisContext> CONTEXTS =
+            Collections.synchronizedMap(new WeakHashMap<ClassLoader, AnalysisContext>());
+
+    private static volatile AnalysisContext defaultContext;
+
+    private final WeakReference<ClassLoader> applicationClassLoader;
+
+    private final CachedClassLoader classLoader;
+
+    private final TypeMetadataProvider metadataProvider;
+
+    private volatile List<String> sdkFiles;
+
+    private volatile Scope baseScope;
+
+    private final ConcurrentMap<String, Scope> packageScopes = new ConcurrentHashMap<String, Scope>();
+
+    private final ConcurrentMap<List<Object>, Scope> inheritedMethods = new ConcurrentHashMap<List<Object>, Scope>();
+
+    private final ConcurrentMap<Class<?>, MethodTable> methodTables = new ConcurrentHashMap<Class<?>, MethodTable>();
+
+    private final CompatibilityCache compatibilityCache = new CompatibilityCache();
+
+    private final TypeConversionCache typeConversionCache = new TypeConversionCache();
+
+    /**
+     * @param applicationClassLoader
+     *            classloader with the classpath of the analyzed project. If it is an URLClassLoader,
+     *            its URLs are indexed. Otherwise, the classpath of the JVM is indexed.
+     */
+    public AnalysisContext(ClassLoader applicationClassLoader) {
+        this.applicationClassLoader = new WeakReference<ClassLoader>(applicationClassLoader);
+        IndexedURLClassLoader icl;
+        if (applicationClassLoader instanceof URLClassLoader) {
+            URLClassLoader aux = (URLClassLoader) applicationClassLoader;
+            icl = new IndexedURLClassLoader(aux.getURLs(), aux.getParent());
+        } else {
+            icl = new IndexedURLClassLoader(applicationClassLoader);
+        }
+        this.classLoader = new CachedClassLoader(icl);
+        this.metadataProvider = new BytecodeTypeMetadataProvider(classLoader);
+    }
+
+    /**
+     * Returns the context of a classloader, reusing the one created before if the classloader is
+     * still alive.
+     *
+     * @param applicationClassLoader
+     *            classloader with the classpath of the analyzed project. If it is null, the default
+     *            context is returned.
+     * @return the context of the classloader
+     */
+    public static AnalysisContext forClassLoader(ClassLoader applicationClassLoader) {
+        if (applicationClassLoader == null) {
+            return getDefault();
+        }
+        synchronized (CONTEXTS) {
+            AnalysisContext context = CONTEXTS.get(applicationClassLoader);
+            if (context == null) {
+                context = new AnalysisContext(applicationClassLoader);
+                CONTEXTS.put(applicationClassLoader, context);
+            }
+            return context;
+        }
+    }
+
+    /**
+     * @return the context of the current thread or the default one.
+     */
+    public static AnalysisContext getCurrent() {
+        AnalysisContext context = CURRENT.get();
+        if (context == null) {
+            context = getDefault();
+        }
+        return context;
+    }
+
+    /**
+     * @return the context of the threads that do not activate another one. By default, it is the
+     *         context of the context classloader of the thread that requests it first.
+     */
+    public static AnalysisContext getDefault() {
+        AnalysisContext context = defaultContext;
+        if (context == null) {
+            synchronized (AnalysisContext.class) {
+                context = defaultContext;
+                if (context == null) {
+                    ClassLoader cl = Thread.currentThread().getContextClassLoader();
+                    if (cl == null) {
+                        cl = ClassLoader.getSystemClassLoader();
+                    }
+                    context = forClassLoader(cl);
+                    defaultContext = context;
+                }
+            }
+        }
+        return context;
+    }
+
+    public static void setDefault(AnalysisContext context) {
+        defaultContext = context;
+    }
+
+    /**
+     * Sets this context as the context of the current thread.
+     *
+     * @return the previous context of the thread, that must be restored with
+     *         {@link #restore(AnalysisContext)} when the analysis finishes.
+     */
+    public AnalysisContext activate() {
+        AnalysisContext previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous;
+    }
+
+    /**
+     * Restores the context of the current thread.
+     *
+     * @param previous
+     *            value returned by {@link #activate()}
+     */
+    public static void restore(AnalysisContext previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * @return the application classloader or null if it has been garbage collected.
+     */
+    public ClassLoader getApplicationClassLoader() {
+        return applicationClassLoader.get();
+    }
+
+    public CachedClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    public TypeMetadataProvider getMetadataProvider() {
+        return metadataProvider;
+    }
+
+    /**
+     * @return the class files of the java.lang package
+     */
+    public List<String> getSDKFiles() {
+        List<String> files = sdkFiles;
+        if (files == null) {
+            files = Collections.unmodifiableList(classLoader.getSDKContents("java.lang"));
+            sdkFiles = files;
+        }
+        return files;
+    }
+
+    /**
+     * @param packageName
+     *            name of a package
+     * @return the frozen scope with the types of the package or null if it has not been loaded
+     */
+    public Scope getPackageScope(String packageName) {
+        return packageScopes.get(packageName);
+    }
+
+    /**
+     * Stores the frozen scope with the types of a package, unless another thread has stored it
+     * before.
+     *
+     * @param packageName
+     *            name of the package
+     * @param scope
+     *            frozen scope with the types of the package
+     * @return the stored scope of the package
+     */
+    public Scope putPackageScope(String packageName, Scope scope) {
+        Scope previous = packageScopes.putIfAbsent(packageName, scope);
+        if (previous != null) {
+            return previous;
+        }
+        return scope;
+    }
+
+    /**
+     * @return the results of the compatibility checks between the symbol types of this context
+     */
+    public CompatibilityCache getCompatibilityCache() {
+        return compatibilityCache;
+    }
+
+    /**
+     * @return the symbol types of the reflective types converted in this context
+     */
+    public TypeConversionCache getTypeConversionCache() {
+        return typeConversionCache;
+    }
+
+    /**
+     * @return the frozen scope with the primitive types and the implicitly imported types of
+     *         java.lang or null if it has not been built.
+     */
+    public Scope getBaseScope() {
+        return baseScope;
+    }
+
+    public void setBaseScope(Scope baseScope) {
+        this.baseScope = baseScope;
+    }
+
+    /**
+     * @param key
+     *            classpath class and the fingerprints of its extension, see
+     *            {@link org.walkmod.javalang.compiler.symbols.SymbolType#fingerprint(List)}
+     * @return the frozen scope with the inherited methods of the class or null if it has not been
+     *         loaded
+     */
+    public Scope getInheritedMethods(List<Object> key) {
+        return inheritedMethods.get(key);
+    }
+
+    /**
+     * Stores the inherited methods of a classpath class, unless another thread has stored them
+     * before.
+     *
+     * @param key
+     *            classpath class and the fingerprints of its extension
+     * @param methods
+     *            frozen scope with the inherited methods
+     * @return the stored scope
+     */
+    public Scope putInheritedMethods(List<Object> key, Scope methods) {
+        Scope previous = inheritedMethods.putIfAbsent(key, methods);
+        if (previous != null) {
+            return previous;
+        }
+        return methods;
+    }
+
+    /**
+     * @param clazz
+     *            class where a method is looked up
+     * @return the table with the methods of the class and of the classes where they are looked
+     *         up, or null if it has not been built
+     */
+    public MethodTable getMethodTable(Class<?> clazz) {
+        return methodTables.get(clazz);
+    }
+
+    /**
+     * Stores the method table of a class, unless another thread has stored it before.
+     *
+     * @param clazz
+     *            class where a method is looked up
+     * @param table
+     *            method table of the class
+     * @return the stored table
+     */
+    public MethodTable putMethodTable(Class<?> clazz, MethodTable table) {
+        MethodTable previous = methodTables.putIfAbsent(clazz, table);
+        if (previous != null) {
+            return previous;
+        }
+        return table;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2015 Raquel Pau and Albert Coroleu.
+ *
+ * Walkmod is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Walkmod is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Walkmod. If
+ * not, see <http://www.gnu.org/licenses/>.
+ */
+package org.walkmod.javalang.compiler.types;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.walkmod.javalang.compiler.types.ClassDescriptor.InnerClassEntry;
+import org.walkmod.javalang.compiler.types.ClassDescriptor.MemberDescriptor;
+
+/**
+ * Reads the class files through the resources of a classloader and parses them with
+ * {@link ClassFileReader}. The descriptors are cached, including the classes that do not exist, and
+ * the least recently used ones are discarded when the cache is full.
+ */
+public class BytecodeTypeMetadataProvider implements TypeMetadataProvider {
+
+    private static Logger LOG = Logger.getLogger(BytecodeTypeMetadataProvider.class);
+
+    private static final ClassDescriptor NOT_FOUND = new ClassDescriptor("", 0, null,
+            Collections.<String>emptyList(), null, Collections.<MemberDescriptor>emptyList(),
+            Collections.<MemberDescriptor>emptyList(), Collections.<InnerClassEntry>emptyList(), null, null);
+
+    /** Default maximum number of descriptors that are remembered. */
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    private final ClassLoader classLoader;
+
+    private final Map<String, ClassDescriptor> cache;
+
+    public BytecodeTypeMetadataProvider(ClassLoader classLoader) {
+        this(classLoader, DEFAULT_CAPACITY);
+    }
+
+    public BytecodeTypeMetadataProvider(ClassLoader classLoader, final int capacity) {
+        this.classLoader = classLoader;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<String, ClassDescriptor>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ClassDescriptor> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    /**
+     * @return the number of cached descriptors, including the classes that do not exist
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    @Override
+    public ClassDescriptor getClassDescriptor(String className) {
+        if (className == null) {
+            return null;
+        }
+        ClassDescriptor descriptor = cache.get(className);
+        if (descriptor == null) {
+            descriptor = read(className);
+            if (descriptor == null) {
+                descriptor = NOT_FOUND;
+            }
+            cache.put(className, descriptor);
+        }
+        if (descriptor == NOT_FOUND) {
+            return null;
+        }
+        return descriptor;
+    }
+
+    private ClassDescriptor read(String className) {
+        if (className.length() == 0 || className.startsWith("[")) {
+            return null;
+        }
+        InputStream is = classLoader.getResourceAsStream(className.replace('.', '/').concat(".class"));
+        if (is == null) {
+            return null;
+        }
+        try {
+            try {
+                ClassDescriptor descriptor = new ClassFileReader(is).read();
+                if (!className.equals(descriptor.getName())) {
+                    // e.g. a resource of a case-insensitive file system
+                    return null;
+                }
+                return descriptor;
+            } finally {
+                is.close();
+            }
+        } catch (IOException e) {
+            LOG.warn("The class file of " + className + " cannot be read", e);
+            return null;
+        }
+    }
+}
@@ -20,12 +20,26 @@ import org.walkmod.javalang.ast.type.Type;
 import org.walkmod.javalang.compiler.symbols.ASTSymbolTypeResolver;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Classloader that caches the classes that have been found and the names that do not exist. It
+ * can be used from several threads: both caches are thread-safe and the loader is parallel capable,
+ * so only the loading of the same class name is serialized.
+ */
 public class CachedClassLoader extends ClassLoader {
 
+    static {
+        registerAsParallelCapable();
+    }
+
+    /** Maximum number of missing names that are remembered. */
+    private static final int MISSING_CACHE_SIZE = 10000;
+
     public static final Map<String, Class<?>> PRIMITIVES;
 
     static {
@@ -44,13 +58,40 @@ public class CachedClassLoader extends ClassLoader {
         PRIMITIVES = Collections.unmodifiableMap(aux);
     }
 
-    private Map<String, Class<?>> cache = new HashMap<String, Class<?>>();
+    private final Map<String, Class<?>> cache = new ConcurrentHashMap<String, Class<?>>();
+
+    private final Map<String, Boolean> missing = Collections.synchronizedMap(
+            new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > MISSING_CACHE_SIZE;
+                }
+            });
 
     public CachedClassLoader(IndexedURLClassLoader parent) {
         super(parent);
+    }
 
-        cache.putAll(PRIMITIVES);
-
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        Class<?> clazz = cache.get(name);
+        if (clazz == null) {
+            if (missing.containsKey(name)) {
+                throw new MissingClassException(name);
+            }
+            try {
+                clazz = super.loadClass(name, resolve);
+            } catch (ClassNotFoundException e) {
+                missing.put(name, Boolean.TRUE);
+                throw e;
+            }
+            cache.put(name, clazz);
+        } else if (resolve) {
+            resolveClass(clazz);
+        }
+        return clazz;
     }
 
     public Class<?> loadClass(Type t) throws ClassNotFoundException {
@@ -58,6 +99,37 @@ public class CachedClassLoader extends ClassLoader {
     }
 
 
+    /**
+     * Checks if a class exists without loading it. The probes that look for the binary name of an
+     * inner class should call it before {@link #loadClass(String)}.
+     *
+     * @param name
+     *            binary name of the class
+     * @return if the class can be loaded
+     */
+    public boolean isLoadable(String name) {
+        if (cache.containsKey(name)) {
+            return true;
+        }
+        if (missing.containsKey(name)) {
+            return false;
+        }
+        if (((IndexedURLClassLoader) getParent()).isLoadable(name)) {
+            return true;
+        }
+        missing.put(name, Boolean.TRUE);
+        return false;
+    }
+
+    /**
+     * Forgets the names that have not been found and rescans the classpath, so the classes that are
+     * added to the classpath directories after a failed lookup can be loaded.
+     */
+    public void refresh() {
+        ((IndexedURLClassLoader) getParent()).refresh();
+        missing.clear();
+    }
+
     public List<String> getPackageContents(String packageName) {
         return ((IndexedURLClassLoader)getParent()).getPackageClasses(packageName);
     }
@@ -68,16 +140,31 @@ public class CachedClassLoader extends ClassLoader {
 
     public Class<?> loadClass(SymbolData t) throws ClassNotFoundException {
         String name = t.getName();
-        Class<?> cachedClass = cache.get(name);
-        if (cachedClass == null) {
-            if (name == null) {
-                return null;
-            }
-            Class<?> clazz = loadClass(t.getName());
-            cache.put(t.getName(), clazz);
-            return clazz;
-        } else {
-            return cachedClass;
+        if (name == null) {
+            return null;
+        }
+        Class<?> primitive = PRIMITIVES.get(name);
+        if (primitive != null) {
+            return primitive;
+        }
+        return loadClass(name, false);
+    }
+
+    /**
+     * Thrown for the names that are known to be missing. Some callers look for classes by trial and
+     * error, so it does not fill the stack trace.
+     */
+    private static class MissingClassException extends ClassNotFoundException {
+
+        private static final long serialVersionUID = 1L;
+
+        public MissingClassException(String name) {
+            super(name);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
         }
     }
 }
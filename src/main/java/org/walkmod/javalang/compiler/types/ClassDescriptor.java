@@ -0,0 +1,308 @@
+/*
+ * Copyright (C) 2015 Raquel Pau and Albert Coroleu.
+ *
+ * Walkmod is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Walkmod is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Walkmod. If
+ * not, see <http://www.gnu.org/licenses/>.
+ */
+package org.walkmod.javalang.compiler.types;
+
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Metadata of a class read from its class file, without loading it into the JVM. The class names
+ * are binary names (e.g. <code>java.util.Map$Entry</code>).
+ */
+public class ClassDescriptor {
+
+    public static final int ACC_SUPER = 0x0020;
+
+    public static final int ACC_SYNTHETIC = 0x1000;
+
+    public static final int ACC_ANNOTATION = 0x2000;
+
+    public static final int ACC_ENUM = 0x4000;
+
+    private final String name;
+
+    private final int accessFlags;
+
+    private final String superName;
+
+    private final List<String> interfaceNames;
+
+    private final String signature;
+
+    private final List<MemberDescriptor> fields;
+
+    private final List<MemberDescriptor> methods;
+
+    private final List<InnerClassEntry> innerClasses;
+
+    private final String enclosingClassName;
+
+    private final String enclosingMethodName;
+
+    private final InnerClassEntry self;
+
+    public ClassDescriptor(String name, int accessFlags, String superName, List<String> interfaceNames,
+            String signature, List<MemberDescriptor> fields, List<MemberDescriptor> methods,
+            List<InnerClassEntry> innerClasses, String enclosingClassName, String enclosingMethodName) {
+        this.name = name;
+        this.accessFlags = accessFlags;
+        this.superName = superName;
+        this.interfaceNames = Collections.unmodifiableList(interfaceNames);
+        this.signature = signature;
+        this.fields = Collections.unmodifiableList(fields);
+        this.methods = Collections.unmodifiableList(methods);
+        this.innerClasses = Collections.unmodifiableList(innerClasses);
+        this.enclosingClassName = enclosingClassName;
+        this.enclosingMethodName = enclosingMethodName;
+        InnerClassEntry self = null;
+        for (InnerClassEntry entry : innerClasses) {
+            if (name.equals(entry.getName())) {
+                self = entry;
+            }
+        }
+        this.self = self;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getAccessFlags() {
+        return accessFlags;
+    }
+
+    /**
+     * Returns the modifiers with the same semantics of {@link Class#getModifiers()}: the flags of
+     * a nested class are the ones declared in its InnerClasses attribute.
+     *
+     * @return the modifiers of the class
+     */
+    public int getModifiers() {
+        int flags = self != null ? self.getAccessFlags() : accessFlags;
+        return flags & ~(ACC_SUPER | ACC_SYNTHETIC | ACC_ANNOTATION | ACC_ENUM);
+    }
+
+    public String getSuperName() {
+        return superName;
+    }
+
+    public List<String> getInterfaceNames() {
+        return interfaceNames;
+    }
+
+    /**
+     * @return the generic signature of the class or null if it is not generic
+     */
+    public String getSignature() {
+        return signature;
+    }
+
+    public List<MemberDescriptor> getFields() {
+        return fields;
+    }
+
+    public List<MemberDescriptor> getMethods() {
+        return methods;
+    }
+
+    public List<InnerClassEntry> getInnerClasses() {
+        return innerClasses;
+    }
+
+    public String getEnclosingClassName() {
+        return enclosingClassName;
+    }
+
+    public String getEnclosingMethodName() {
+        return enclosingMethodName;
+    }
+
+    public String getPackageName() {
+        int index = name.lastIndexOf('.');
+        if (index == -1) {
+            return "";
+        }
+        return name.substring(0, index);
+    }
+
+    public String getSimpleName() {
+        if (self != null) {
+            String simpleName = self.getSimpleName();
+            return simpleName != null ? simpleName : "";
+        }
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    public boolean isInterface() {
+        return (accessFlags & Modifier.INTERFACE) != 0;
+    }
+
+    public boolean isAnnotation() {
+        return (accessFlags & ACC_ANNOTATION) != 0;
+    }
+
+    public boolean isEnum() {
+        return (accessFlags & ACC_ENUM) != 0;
+    }
+
+    public boolean isSynthetic() {
+        return (accessFlags & ACC_SYNTHETIC) != 0;
+    }
+
+    public boolean isAnonymousClass() {
+        return self != null && self.getSimpleName() == null;
+    }
+
+    public boolean isLocalClass() {
+        return self != null && self.getSimpleName() != null && self.getOuterName() == null;
+    }
+
+    public boolean isMemberClass() {
+        return self != null && self.getOuterName() != null;
+    }
+
+    /**
+     * @return the binary name of the class that declares this member class or null
+     */
+    public String getDeclaringClassName() {
+        if (self != null) {
+            return self.getOuterName();
+        }
+        return null;
+    }
+
+    /**
+     * @return the member classes declared by this class, like {@link Class#getDeclaredClasses()}
+     */
+    public List<InnerClassEntry> getDeclaredClasses() {
+        List<InnerClassEntry> result = new LinkedList<InnerClassEntry>();
+        for (InnerClassEntry entry : innerClasses) {
+            if (name.equals(entry.getOuterName())) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Field or method of a class file.
+     */
+    public static class MemberDescriptor {
+
+        private final String name;
+
+        private final String descriptor;
+
+        private final String signature;
+
+        private final int accessFlags;
+
+        public MemberDescriptor(String name, String descriptor, String signature, int accessFlags) {
+            this.name = name;
+            this.descriptor = descriptor;
+            this.signature = signature;
+            this.accessFlags = accessFlags;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the JVM descriptor, e.g. <code>(Ljava/lang/String;)V</code>
+         */
+        public String getDescriptor() {
+            return descriptor;
+        }
+
+        /**
+         * @return the generic signature or null if the member does not use generics
+         */
+        public String getSignature() {
+            return signature;
+        }
+
+        public int getAccessFlags() {
+            return accessFlags;
+        }
+
+        public int getModifiers() {
+            return accessFlags & ~ACC_SYNTHETIC;
+        }
+
+        public boolean isSynthetic() {
+            return (accessFlags & ACC_SYNTHETIC) != 0;
+        }
+
+        @Override
+        public String toString() {
+            return name + descriptor;
+        }
+    }
+
+    /**
+     * Entry of the InnerClasses attribute of a class file.
+     */
+    public static class InnerClassEntry {
+
+        private final String name;
+
+        private final String outerName;
+
+        private final String simpleName;
+
+        private final int accessFlags;
+
+        public InnerClassEntry(String name, String outerName, String simpleName, int accessFlags) {
+            this.name = name;
+            this.outerName = outerName;
+            this.simpleName = simpleName;
+            this.accessFlags = accessFlags;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the declaring class or null for local and anonymous classes
+         */
+        public String getOuterName() {
+            return outerName;
+        }
+
+        /**
+         * @return the simple name or null for anonymous classes
+         */
+        public String getSimpleName() {
+            return simpleName;
+        }
+
+        public int getAccessFlags() {
+            return accessFlags;
+        }
+
+        public int getModifiers() {
+            return accessFlags & ~(ACC_SUPER | ACC_SYNTHETIC | ACC_ANNOTATION | ACC_ENUM);
+        }
+    }
+}
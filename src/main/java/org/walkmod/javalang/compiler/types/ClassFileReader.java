@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2015 Raquel Pau and Albert Coroleu.
+ *
+ * Walkmod is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Walkmod is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Walkmod. If
+ * not, see <http://www.gnu.org/licenses/>.
+ */
+package org.walkmod.javalang.compiler.types;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.walkmod.javalang.compiler.types.ClassDescriptor.InnerClassEntry;
+import org.walkmod.javalang.compiler.types.ClassDescriptor.MemberDescriptor;
+
+/**
+ * Parses the parts of a class file that are required to resolve types: the constant pool, the
+ * access flags, the hierarchy, the fields, the methods and the Signature, InnerClasses and
+ * EnclosingMethod attributes. The bytecode of the methods is skipped.
+ */
+public class ClassFileReader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private final DataInputStream in;
+
+    private String[] utf8;
+
+    /** for class and name and type entries, the index of the (first) referenced utf8 entry */
+    private int[] references;
+
+    public ClassFileReader(InputStream in) {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+    }
+
+    /**
+     * Reads a class file. The stream is not closed.
+     *
+     * @return the metadata of the class
+     * @throws IOException
+     *             if the stream cannot be read or it is not a valid class file
+     */
+    public ClassDescriptor read() throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Invalid class file");
+        }
+        in.readUnsignedShort(); // minor version
+        in.readUnsignedShort(); // major version
+        readConstantPool();
+
+        int accessFlags = in.readUnsignedShort();
+        String name = readClassName(in.readUnsignedShort());
+        String superName = readClassName(in.readUnsignedShort());
+        int interfacesCount = in.readUnsignedShort();
+        List<String> interfaceNames = new ArrayList<String>(interfacesCount);
+        for (int i = 0; i < interfacesCount; i++) {
+            interfaceNames.add(readClassName(in.readUnsignedShort()));
+        }
+        List<MemberDescriptor> fields = readMembers();
+        List<MemberDescriptor> methods = readMembers();
+
+        String signature = null;
+        List<InnerClassEntry> innerClasses = new ArrayList<InnerClassEntry>();
+        String enclosingClassName = null;
+        String enclosingMethodName = null;
+        int attributesCount = in.readUnsignedShort();
+        for (int i = 0; i < attributesCount; i++) {
+            String attributeName = utf8[in.readUnsignedShort()];
+            int length = in.readInt();
+            if ("Signature".equals(attributeName)) {
+                signature = utf8[in.readUnsignedShort()];
+            } else if ("InnerClasses".equals(attributeName)) {
+                int classes = in.readUnsignedShort();
+                for (int j = 0; j < classes; j++) {
+                    String innerName = readClassName(in.readUnsignedShort());
+                    String outerName = readClassName(in.readUnsignedShort());
+                    int simpleNameIndex = in.readUnsignedShort();
+                    String simpleName = simpleNameIndex != 0 ? utf8[simpleNameIndex] : null;
+                    innerClasses.add(new InnerClassEntry(innerName, outerName, simpleName, in.readUnsignedShort()));
+                }
+            } else if ("EnclosingMethod".equals(attributeName)) {
+                enclosingClassName = readClassName(in.readUnsignedShort());
+                int nameAndType = in.readUnsignedShort();
+                if (nameAndType != 0) {
+                    enclosingMethodName = utf8[references[nameAndType]];
+                }
+            } else {
+                skip(length);
+            }
+        }
+        return new ClassDescriptor(name, accessFlags, superName, interfaceNames, signature, fields, methods,
+                innerClasses, enclosingClassName, enclosingMethodName);
+    }
+
+    private void readConstantPool() throws IOException {
+        int count = in.readUnsignedShort();
+        utf8 = new String[count];
+        references = new int[count];
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+            case CONSTANT_UTF8:
+                utf8[i] = in.readUTF();
+                break;
+            case CONSTANT_CLASS:
+            case CONSTANT_NAME_AND_TYPE:
+                references[i] = in.readUnsignedShort();
+                if (tag == CONSTANT_NAME_AND_TYPE) {
+                    in.readUnsignedShort();
+                }
+                break;
+            case CONSTANT_STRING:
+            case CONSTANT_METHOD_TYPE:
+            case CONSTANT_MODULE:
+            case CONSTANT_PACKAGE:
+                skip(2);
+                break;
+            case CONSTANT_METHOD_HANDLE:
+                skip(3);
+                break;
+            case CONSTANT_INTEGER:
+            case CONSTANT_FLOAT:
+            case CONSTANT_FIELDREF:
+            case CONSTANT_METHODREF:
+            case CONSTANT_INTERFACE_METHODREF:
+            case CONSTANT_DYNAMIC:
+            case CONSTANT_INVOKE_DYNAMIC:
+                skip(4);
+                break;
+            case CONSTANT_LONG:
+            case CONSTANT_DOUBLE:
+                skip(8);
+                i++; // they take two entries
+                break;
+            default:
+                throw new IOException("Invalid constant pool tag " + tag);
+            }
+        }
+    }
+
+    private List<MemberDescriptor> readMembers() throws IOException {
+        int count = in.readUnsignedShort();
+        List<MemberDescriptor> members = new ArrayList<MemberDescriptor>(count);
+        for (int i = 0; i < count; i++) {
+            int accessFlags = in.readUnsignedShort();
+            String name = utf8[in.readUnsignedShort()];
+            String descriptor = utf8[in.readUnsignedShort()];
+            String signature = null;
+            int attributesCount = in.readUnsignedShort();
+            for (int j = 0; j < attributesCount; j++) {
+                String attributeName = utf8[in.readUnsignedShort()];
+                int length = in.readInt();
+                if ("Signature".equals(attributeName)) {
+                    signature = utf8[in.readUnsignedShort()];
+                } else {
+                    skip(length);
+                }
+            }
+            members.add(new MemberDescriptor(name, descriptor, signature, accessFlags));
+        }
+        return members;
+    }
+
+    private String readClassName(int index) {
+        if (index == 0) {
+            return null;
+        }
+        return utf8[references[index]].replace('/', '.');
+    }
+
+    private void skip(int bytes) throws IOException {
+        int remaining = bytes;
+        while (remaining > 0) {
+            int skipped = in.skipBytes(remaining);
+            if (skipped <= 0) {
+                throw new IOException("Unexpected end of class file");
+            }
+            remaining -= skipped;
+        }
+    }
+}
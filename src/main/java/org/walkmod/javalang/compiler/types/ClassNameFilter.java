@@ -0,0 +1,65 @@
+package org.walkmod.javalang.compiler.types;
+
+/**
+ * Bloom filter of class names. It answers in constant time and without allocations if a class name
+ * may exist, with a false positive rate below 1% and no false negatives.
+ */
+public class ClassNameFilter {
+
+    private static final int HASHES = 7;
+
+    private static final int BITS_PER_NAME = 10;
+
+    private final long[] bits;
+
+    private final int mask;
+
+    /**
+     * @param expectedNames
+     *            number of names that will be added
+     */
+    public ClassNameFilter(int expectedNames) {
+        long required = Math.max(64L, (long) expectedNames * BITS_PER_NAME);
+        int size = Integer.highestOneBit((int) Math.min(required, 1 << 30));
+        if (size < required && size < (1 << 30)) {
+            size = size << 1;
+        }
+        bits = new long[size >>> 6];
+        mask = size - 1;
+    }
+
+    public void put(String className) {
+        int h = className.hashCode();
+        int h1 = h ^ (h >>> 16);
+        int h2 = secondHash(h);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (h1 + i * h2) & mask;
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * @param className
+     *            binary name of a class
+     * @return false if the class name has not been added and true if it may have been added.
+     */
+    public boolean mightContain(String className) {
+        int h = className.hashCode();
+        int h1 = h ^ (h >>> 16);
+        int h2 = secondHash(h);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (h1 + i * h2) & mask;
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int secondHash(int h) {
+        h *= 0x9E3779B9;
+        h ^= h >>> 15;
+        // an odd step visits different positions for each hash function
+        return h | 1;
+    }
+}
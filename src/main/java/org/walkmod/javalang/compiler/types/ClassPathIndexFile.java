@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2015 Raquel Pau and Albert Coroleu.
+ *
+ * Walkmod is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Walkmod is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Walkmod. If
+ * not, see <http://www.gnu.org/licenses/>.
+ */
+package org.walkmod.javalang.compiler.types;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Persistent index of the resources contained in the jar files of a classpath. Each jar is keyed
+ * by its path, size and last modification time, so jars that have not changed since the index was
+ * written do not need to be enumerated again. The jars that have not been requested since the index
+ * was loaded are removed when it is saved, so the file only describes the current classpath. The
+ * jars that other processes have saved in the meantime are kept, because the file is merged with its
+ * current contents under a file lock before it is replaced.
+ */
+public class ClassPathIndexFile {
+
+    private static final int MAGIC = 0x57434958;
+
+    private static final int VERSION = 1;
+
+    private static Logger LOG = Logger.getLogger(ClassPathIndexFile.class);
+
+    /** the file locks are held by the whole JVM, so the saves of the same JVM are serialized first */
+    private static final Object SAVE_LOCK = new Object();
+
+    private final File file;
+
+    private final Map<String, JarEntries> entries = new HashMap<String, JarEntries>();
+
+    private final Set<String> used = new HashSet<String>();
+
+    /** jars of the file when it was loaded or saved */
+    private final Set<String> loaded = new HashSet<String>();
+
+    private boolean modified = false;
+
+    public ClassPathIndexFile(File file) {
+        this.file = file;
+        entries.putAll(read());
+        loaded.addAll(entries.keySet());
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the indexed resources of a jar file.
+     *
+     * @param jar
+     *            jar file of the classpath
+     * @return the resource names of the jar or null if the jar is not indexed or it has been
+     *         modified since it was indexed.
+     */
+    public synchronized List<String> getResources(File jar) {
+        String path = jar.getAbsolutePath();
+        JarEntries value = entries.get(path);
+        if (value != null && value.size == jar.length() && value.lastModified == jar.lastModified()) {
+            used.add(path);
+            return value.resources;
+        }
+        return null;
+    }
+
+    public synchronized void putResources(File jar, List<String> resources) {
+        String path = jar.getAbsolutePath();
+        entries.put(path, new JarEntries(jar.length(), jar.lastModified(),
+                Collections.unmodifiableList(new ArrayList<String>(resources))));
+        used.add(path);
+        modified = true;
+    }
+
+    /**
+     * @return if some jar has been indexed or some indexed jar has not been requested since the
+     *         index was loaded.
+     */
+    public synchronized boolean isModified() {
+        return modified || entries.size() > used.size();
+    }
+
+    /**
+     * Reads the current contents of the file.
+     *
+     * @return the indexed jars, or an empty map if the file does not exist or it cannot be read
+     */
+    private Map<String, JarEntries> read() {
+        Map<String, JarEntries> result = new HashMap<String, JarEntries>();
+        if (file.isFile()) {
+            try {
+                read(result);
+            } catch (IOException e) {
+                // a corrupt or outdated index is just rebuilt
+                LOG.warn("The classpath index " + file.getAbsolutePath() + " cannot be read. It will be rebuilt", e);
+                result.clear();
+            }
+        }
+        return result;
+    }
+
+    private void read(Map<String, JarEntries> result) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported classpath index format");
+            }
+            int jars = readCount(in);
+            for (int i = 0; i < jars; i++) {
+                String path = in.readUTF();
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                int count = readCount(in);
+                List<String> resources = new ArrayList<String>(Math.min(count, 1024));
+                for (int j = 0; j < count; j++) {
+                    resources.add(in.readUTF());
+                }
+                result.put(path, new JarEntries(size, lastModified, Collections.unmodifiableList(resources)));
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static int readCount(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Corrupt classpath index");
+        }
+        return count;
+    }
+
+    /**
+     * Writes the index if some jar has been indexed since it was loaded, without the jars that have
+     * not been requested. It must be called once all the jars of the classpath have been indexed.
+     * The jars that have been saved by other indexes since this one was loaded are kept: the file is
+     * read again and replaced under a lock, so concurrent saves do not lose each other's jars. The
+     * file is replaced atomically when the platform supports it, so concurrent readers never see a
+     * partial index.
+     *
+     * @throws IOException
+     *             if the index cannot be written
+     */
+    public synchronized void save() throws IOException {
+        if (!isModified()) {
+            return;
+        }
+        entries.keySet().retainAll(used);
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("The directory " + parent.getAbsolutePath() + " cannot be created");
+        }
+        synchronized (SAVE_LOCK) {
+            RandomAccessFile lockFile = new RandomAccessFile(new File(parent, file.getName() + ".lock"), "rw");
+            try {
+                FileLock lock = lockFile.getChannel().lock();
+                try {
+                    Map<String, JarEntries> merged = read();
+                    merged.keySet().removeAll(loaded);
+                    merged.putAll(entries);
+                    replace(merged, parent);
+                    loaded.clear();
+                    loaded.addAll(merged.keySet());
+                } finally {
+                    lock.release();
+                }
+            } finally {
+                lockFile.close();
+            }
+        }
+        modified = false;
+    }
+
+    private void replace(Map<String, JarEntries> contents, File parent) throws IOException {
+        File tmp = File.createTempFile(file.getName(), ".tmp", parent);
+        boolean replaced = false;
+        try {
+            write(contents, tmp);
+            if (!tmp.renameTo(file)) {
+                file.delete();
+                if (!tmp.renameTo(file)) {
+                    throw new IOException("The classpath index " + file.getAbsolutePath() + " cannot be written");
+                }
+            }
+            replaced = true;
+        } finally {
+            if (!replaced) {
+                tmp.delete();
+            }
+        }
+    }
+
+    private static void write(Map<String, JarEntries> contents, File target) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(target)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(contents.size());
+            for (Map.Entry<String, JarEntries> entry : contents.entrySet()) {
+                JarEntries value = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeLong(value.size);
+                out.writeLong(value.lastModified);
+                out.writeInt(value.resources.size());
+                for (String resource : value.resources) {
+                    out.writeUTF(resource);
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static class JarEntries {
+        final long size;
+        final long lastModified;
+        final List<String> resources;
+
+        JarEntries(long size, long lastModified, List<String> resources) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.resources = resources;
+        }
+    }
+}
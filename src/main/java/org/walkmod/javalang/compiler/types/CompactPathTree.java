@@ -0,0 +1,313 @@
+package org.walkmod.javalang.compiler.types;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A trie of resource paths whose values are the ordinals of the classpath elements that contain
+ * them. It is compact enough for big classpaths: the nodes do not store the full path of their
+ * resource, directory names are shared between nodes, small nodes keep their children in an array
+ * and the lookups do not split the key.
+ *
+ * The first value inserted for a key is kept, so the first classpath element that contains a
+ * resource is the one that provides it.
+ */
+public class CompactPathTree {
+
+    /** Returned by {@link #get(String)} when the key has no value. */
+    public static final int NO_VALUE = -1;
+
+    /** Nodes with more children use an open addressing hash table. */
+    private static final int MAX_ARRAY_CHILDREN = 8;
+
+    private static final char SEPARATOR = File.separatorChar;
+
+    private final Node root = new Node("");
+
+    private final Map<String, String> directories = new HashMap<String, String>();
+
+    private int size = 0;
+
+    /**
+     * Inserts a resource path if it has no value yet.
+     *
+     * @param key
+     *            resource path, whose segments are separated by {@link File#separatorChar}.
+     * @param ordinal
+     *            non negative position of the classpath element that contains the resource.
+     */
+    public void put(String key, int ordinal) {
+        if (ordinal < 0) {
+            throw new IllegalArgumentException("Invalid classpath ordinal " + ordinal + " for " + key);
+        }
+        int end = trimmedLength(key);
+        Node node = root;
+        int start = 0;
+        while (true) {
+            int next = key.indexOf(SEPARATOR, start);
+            if (next < 0 || next > end) {
+                next = end;
+            }
+            Node child = node.find(key, start, next);
+            if (child == null) {
+                String segment = key.substring(start, next);
+                if (next < end) {
+                    segment = internDirectory(segment);
+                }
+                child = new Node(segment);
+                node.add(child);
+            }
+            node = child;
+            if (next >= end) {
+                break;
+            }
+            start = next + 1;
+        }
+        if (node.ordinal == NO_VALUE) {
+            node.ordinal = ordinal;
+            node.trailingSeparator = end < key.length();
+            size++;
+        }
+    }
+
+    /**
+     * @param key
+     *            resource path
+     * @return the ordinal of the classpath element of the resource or {@link #NO_VALUE}
+     */
+    public int get(String key) {
+        Node node = findNode(key);
+        if (node == null) {
+            return NO_VALUE;
+        }
+        return node.ordinal;
+    }
+
+    public boolean containsKey(String key) {
+        return get(key) != NO_VALUE;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Lists the resource of a path (if it has a value) and its direct children with a value.
+     *
+     * @param key
+     *            directory path. The empty string lists the root.
+     * @return resource paths
+     */
+    public List<String> list(String key) {
+        List<String> list = new LinkedList<String>();
+        Node node;
+        String prefix;
+        if ("".equals(key)) {
+            node = root;
+            prefix = "";
+        } else {
+            node = findNode(key);
+            if (node == null) {
+                return list;
+            }
+            prefix = key.substring(0, trimmedLength(key));
+            if (node.ordinal != NO_VALUE) {
+                list.add(node.path(prefix));
+            }
+            prefix = prefix + SEPARATOR;
+        }
+        Node[] children = node.children;
+        if (children != null) {
+            for (int i = 0; i < children.length; i++) {
+                Node child = children[i];
+                if (child != null && child.ordinal != NO_VALUE) {
+                    list.add(child.path(prefix + child.segment));
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Visits the paths with a value whose last segment ends with a suffix.
+     *
+     * @param suffix
+     *            required suffix (e.g. <code>.class</code>)
+     * @param visitor
+     *            receiver of the paths
+     */
+    public void visit(String suffix, PathVisitor visitor) {
+        visit(root, new StringBuilder(), suffix, visitor);
+    }
+
+    private void visit(Node node, StringBuilder path, String suffix, PathVisitor visitor) {
+        Node[] children = node.children;
+        if (children == null) {
+            return;
+        }
+        int length = path.length();
+        for (int i = 0; i < children.length; i++) {
+            Node child = children[i];
+            if (child != null) {
+                if (length > 0) {
+                    path.append(SEPARATOR);
+                }
+                path.append(child.segment);
+                if (child.ordinal != NO_VALUE && child.segment.endsWith(suffix)) {
+                    visitor.visit(path.toString(), child.ordinal);
+                }
+                visit(child, path, suffix, visitor);
+                path.setLength(length);
+            }
+        }
+    }
+
+    /**
+     * Receives the paths of {@link CompactPathTree#visit(String, PathVisitor)}.
+     */
+    public interface PathVisitor {
+
+        void visit(String path, int ordinal);
+    }
+
+    private Node findNode(String key) {
+        int end = trimmedLength(key);
+        Node node = root;
+        int start = 0;
+        while (node != null) {
+            int next = key.indexOf(SEPARATOR, start);
+            if (next < 0 || next > end) {
+                next = end;
+            }
+            node = node.find(key, start, next);
+            if (next >= end) {
+                return node;
+            }
+            start = next + 1;
+        }
+        return null;
+    }
+
+    private String internDirectory(String segment) {
+        String interned = directories.get(segment);
+        if (interned == null) {
+            directories.put(segment, segment);
+            interned = segment;
+        }
+        return interned;
+    }
+
+    /**
+     * Trailing separators are ignored, like {@link String#split(String)} does.
+     */
+    private static int trimmedLength(String key) {
+        int end = key.length();
+        while (end > 0 && key.charAt(end - 1) == SEPARATOR) {
+            end--;
+        }
+        return end;
+    }
+
+    private static int hash(String key, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + key.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Node {
+
+        final String segment;
+
+        /** Exact sized array or, above {@link #MAX_ARRAY_CHILDREN}, a power of two hash table. */
+        Node[] children;
+
+        int childCount;
+
+        int ordinal = NO_VALUE;
+
+        boolean trailingSeparator;
+
+        Node(String segment) {
+            this.segment = segment;
+        }
+
+        String path(String path) {
+            if (trailingSeparator) {
+                return path + SEPARATOR;
+            }
+            return path;
+        }
+
+        boolean matches(String key, int start, int end) {
+            int length = end - start;
+            return segment.length() == length && segment.regionMatches(0, key, start, length);
+        }
+
+        Node find(String key, int start, int end) {
+            if (children == null) {
+                return null;
+            }
+            if (childCount <= MAX_ARRAY_CHILDREN) {
+                for (int i = 0; i < childCount; i++) {
+                    if (children[i].matches(key, start, end)) {
+                        return children[i];
+                    }
+                }
+                return null;
+            }
+            int mask = children.length - 1;
+            int i = hash(key, start, end) & mask;
+            Node child;
+            while ((child = children[i]) != null) {
+                if (child.matches(key, start, end)) {
+                    return child;
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        void add(Node child) {
+            if (children == null) {
+                children = new Node[] { child };
+                childCount = 1;
+            } else if (childCount < MAX_ARRAY_CHILDREN) {
+                Node[] aux = new Node[childCount + 1];
+                System.arraycopy(children, 0, aux, 0, childCount);
+                aux[childCount] = child;
+                children = aux;
+                childCount++;
+            } else {
+                if (childCount == MAX_ARRAY_CHILDREN || (childCount + 1) * 4 > children.length * 3) {
+                    rehash(Integer.highestOneBit(childCount + 1) * 4);
+                }
+                insert(children, child);
+                childCount++;
+            }
+        }
+
+        private void rehash(int capacity) {
+            Node[] table = new Node[capacity];
+            for (Node child : children) {
+                if (child != null) {
+                    insert(table, child);
+                }
+            }
+            children = table;
+        }
+
+        private static void insert(Node[] table, Node child) {
+            int mask = table.length - 1;
+            int i = hash(child.segment, 0, child.segment.length()) & mask;
+            while (table[i] != null) {
+                i = (i + 1) & mask;
+            }
+            table[i] = child;
+        }
+    }
+}
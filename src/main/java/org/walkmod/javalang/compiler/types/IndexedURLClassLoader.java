@@ -1,9 +1,8 @@
 package org.walkmod.javalang.compiler.types;
 
-import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.security.AllPermission;
@@ -21,11 +20,18 @@ import java.util.List;
  * The standard URLClassLoader does a linear scan of the classpath for each class or resource, which
  * becomes prohibitively expensive for classpaths with many elements.
  */
-public class IndexedURLClassLoader extends ClassLoader {
+public class IndexedURLClassLoader extends ClassLoader implements Closeable {
+
+    static {
+        registerAsParallelCapable();
+    }
 
     /* The search path for classes and resources */
     private final IndexedURLClassPath ucp;
 
+    /* Protection domains by classpath element, created on demand */
+    private ProtectionDomain[] domains;
+
     public IndexedURLClassLoader(ClassLoader parent) {
         // parent is the default system classloader, which we want to bypass entirely in
         // the delegation hierarchy, so we make our parent that thing's parent instead.
@@ -42,6 +48,53 @@ public class IndexedURLClassLoader extends ClassLoader {
         this.ucp = new IndexedURLClassPath(urls);
     }
 
+    /**
+     * @param urls
+     *            classpath elements
+     * @param parent
+     *            parent classloader
+     * @param indexFile
+     *            persistent index of the jar contents, reused by subsequent executions. It can be
+     *            null.
+     */
+    public IndexedURLClassLoader(URL[] urls, ClassLoader parent, File indexFile) {
+        super(parent);
+        this.ucp = new IndexedURLClassPath(urls, indexFile);
+    }
+
+    public void setParallelIndexing(boolean parallelIndexing) {
+        ucp.setParallelIndexing(parallelIndexing);
+    }
+
+    /**
+     * @see IndexedURLClassPath#setKeepJarsOpen(boolean)
+     */
+    public void setKeepJarsOpen(boolean keepJarsOpen) {
+        ucp.setKeepJarsOpen(keepJarsOpen);
+    }
+
+    /**
+     * Checks if a class can be loaded without loading it and without the cost of a
+     * {@link ClassNotFoundException}.
+     *
+     * @param name
+     *            binary name of the class
+     * @return if the class file exists in this classpath or in the parent classloaders
+     */
+    public boolean isLoadable(String name) {
+        if (ucp.containsClass(name)) {
+            return true;
+        }
+        return super.getResource(name.replace('.', '/').concat(".class")) != null;
+    }
+
+    /**
+     * @see IndexedURLClassPath#refresh()
+     */
+    public void refresh() {
+        ucp.refresh();
+    }
+
     public List<String> getPackageClasses(String packageName) {
         return ucp.listPackageContents(packageName);
     }
@@ -72,24 +125,23 @@ public class IndexedURLClassLoader extends ClassLoader {
     protected Class<?> findClass(String name) throws ClassNotFoundException {
         try {
             String path = name.replace('.', '/').concat(".class");
-            URL res = ucp.findResource(path);
-            if (res != null) {
+            int element = ucp.findElement(path);
+            if (element != CompactPathTree.NO_VALUE) {
                 int i = name.lastIndexOf('.');
                 if (i != -1) {
                     String pkgname = name.substring(0, i);
                     // Check if package already loaded.
                     Package pkg = getPackage(pkgname);
                     if (pkg == null) {
-                        definePackage(pkgname, null, null, null, null, null, null, null);
+                        try {
+                            definePackage(pkgname, null, null, null, null, null, null, null);
+                        } catch (IllegalArgumentException e) {
+                            // already defined by a concurrent thread
+                        }
                     }
                 }
-                byte[] data = loadResource(res);
-                // Add a CodeSource via a ProtectionDomain, as code may use this to find its own jars.
-                CodeSource cs = new CodeSource(res, (Certificate[])null);
-                PermissionCollection pc = new Permissions();
-                pc.add(new AllPermission());
-                ProtectionDomain pd = new ProtectionDomain(cs, pc);
-                return defineClass(name, data, 0, data.length, pd);
+                byte[] data = ucp.readResource(element, path);
+                return defineClass(name, data, 0, data.length, getProtectionDomain(element));
             } else {
                 throw new ClassNotFoundException(String.format("IndexedURLClassLoader failed to read class %s", name));
             }
@@ -98,19 +150,27 @@ public class IndexedURLClassLoader extends ClassLoader {
         }
     }
 
-    private byte[] loadResource(URL toDownload) throws IOException {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-
-        byte[] chunk = new byte[4096];
-        int bytesRead;
-        InputStream stream = toDownload.openStream();
-        try {
-            while ((bytesRead = stream.read(chunk)) > 0) {
-                outputStream.write(chunk, 0, bytesRead);
-            }
-        } finally {
-            stream.close();
+    private synchronized ProtectionDomain getProtectionDomain(int element) {
+        if (domains == null) {
+            domains = new ProtectionDomain[ucp.getURLs().length + 1];
+        }
+        ProtectionDomain pd = domains[element];
+        if (pd == null) {
+            // Add a CodeSource via a ProtectionDomain, as code may use this to find its own jars.
+            CodeSource cs = new CodeSource(ucp.getElementURL(element), (Certificate[]) null);
+            PermissionCollection pc = new Permissions();
+            pc.add(new AllPermission());
+            pd = new ProtectionDomain(cs, pc);
+            domains[element] = pd;
         }
-        return outputStream.toByteArray();
+        return pd;
+    }
+
+    /**
+     * Closes the jar files that have been kept open to load the classes.
+     */
+    @Override
+    public void close() throws IOException {
+        ucp.close();
     }
-}
\ No newline at end of file
+}
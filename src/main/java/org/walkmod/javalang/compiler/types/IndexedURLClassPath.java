@@ -1,14 +1,27 @@
 package org.walkmod.javalang.compiler.types;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
+import org.apache.log4j.Logger;
+
 /**
  * A modified URLClassPath that indexes the contents of classpath elements, for faster resource locating.
  *
@@ -17,12 +30,40 @@ import java.util.jar.JarFile;
  */
 public class IndexedURLClassPath  {
 
+    /**
+     * System property with the path of the persistent classpath index file. If it is not defined,
+     * the jars of the classpath are always enumerated.
+     */
+    public static final String INDEX_FILE_PROPERTY = "walkmod.javalang.classpath.index";
+
+    /**
+     * System property to scan the classpath elements concurrently ("true" or "false").
+     */
+    public static final String PARALLEL_INDEXING_PROPERTY = "walkmod.javalang.classpath.parallel";
+
+    /**
+     * System property to keep the jar files of the classpath open to read the classes ("true" or
+     * "false").
+     */
+    public static final String KEEP_JARS_OPEN_PROPERTY = "walkmod.javalang.classpath.keepJarsOpen";
+
+    private static Logger LOG = Logger.getLogger(IndexedURLClassPath.class);
+
     private final URL[] urls;
     private int lastIndexed = 0;
+    private final ClassPathIndexFile indexFile;
+    private boolean parallelIndexing = Boolean.getBoolean(PARALLEL_INDEXING_PROPERTY);
+    private boolean keepJarsOpen = Boolean.getBoolean(KEEP_JARS_OPEN_PROPERTY);
+    // class names of the index, built once the classpath is completely indexed
+    private ClassNameFilter classFilter;
+    private int classFilterIndexSize = -1;
+    // open jar files by classpath element ordinal
+    private JarFile[] openJars;
 
     private static URL RT_JAR;
-    // Map from resource name to URLClassPath to delegate loading that resource to.
-    private final PathTree<URL> index = new PathTree<URL>();
+    // Map from resource name to the ordinal of the classpath element to delegate loading that resource to.
+    // The ordinal of RT_JAR is urls.length.
+    private CompactPathTree index = new CompactPathTree();
 
     static {
 
@@ -44,46 +85,360 @@ public class IndexedURLClassPath  {
     }
 
     public IndexedURLClassPath(final URL[] urls) {
+        this(urls, getDefaultIndexFile());
+    }
+
+    /**
+     * @param urls
+     *            classpath elements
+     * @param indexFile
+     *            persistent index to load the contents of unchanged jars from. It can be null.
+     */
+    public IndexedURLClassPath(final URL[] urls, final File indexFile) {
         this.urls =  urls;
+        this.indexFile = indexFile != null ? new ClassPathIndexFile(indexFile) : null;
     }
 
+    private static File getDefaultIndexFile() {
+        String path = System.getProperty(INDEX_FILE_PROPERTY);
+        if (path == null || "".equals(path)) {
+            return null;
+        }
+        return new File(path);
+    }
+
+    public boolean isParallelIndexing() {
+        return parallelIndexing;
+    }
+
+    /**
+     * Enables the concurrent scan of the classpath elements. The resources are still merged in
+     * classpath order, so the first element that contains a resource is the one that provides it.
+     *
+     * @param parallelIndexing
+     *            if the classpath elements must be scanned concurrently.
+     */
+    public void setParallelIndexing(boolean parallelIndexing) {
+        this.parallelIndexing = parallelIndexing;
+    }
+
+    public boolean isKeepJarsOpen() {
+        return keepJarsOpen;
+    }
+
+    /**
+     * Keeps the jar files open after reading the first resource of each one, so the next ones are
+     * read directly from them. They are released with {@link #close()}.
+     *
+     * @param keepJarsOpen
+     *            if the jar files must be kept open.
+     */
+    public void setKeepJarsOpen(boolean keepJarsOpen) {
+        this.keepJarsOpen = keepJarsOpen;
+    }
 
     public URL findResource(final String name) {
-        URL delegate = index.get(name);
-        if (delegate == null) {
-            if (lastIndexed < urls.length) {
-                indexURLs(urls[lastIndexed]);
+        int ordinal = findElement(name);
+        if (ordinal == CompactPathTree.NO_VALUE) {
+            return null;
+        }
+        return getResourceURL(ordinal, name);
+    }
+
+    /**
+     * Finds the classpath element that provides a resource, indexing the pending elements if it is
+     * necessary.
+     *
+     * @param name
+     *            resource name
+     * @return the ordinal of the classpath element or {@link CompactPathTree#NO_VALUE}
+     */
+    public synchronized int findElement(final String name) {
+        int ordinal = index.get(name);
+        while (ordinal == CompactPathTree.NO_VALUE && lastIndexed < urls.length) {
+            if (parallelIndexing) {
+                indexRemainingURLs();
+            } else {
+                indexURLs(lastIndexed);
                 lastIndexed ++;
-                return findResource(name);
+                if (lastIndexed == urls.length) {
+                    saveIndexFile();
+                }
             }
-            return null;
+            ordinal = index.get(name);
+        }
+        return ordinal;
+    }
+
+    /**
+     * Checks if a class exists in the classpath without loading it. It indexes the whole classpath
+     * the first time, and the next negative answers are usually resolved by a bloom filter.
+     *
+     * @param className
+     *            binary name of the class
+     * @return if the class file exists in some classpath element
+     */
+    public synchronized boolean containsClass(final String className) {
+        indexRemainingURLs();
+        if (classFilter == null || classFilterIndexSize != index.size()) {
+            final ClassNameFilter filter = new ClassNameFilter(index.size());
+            index.visit(".class", new CompactPathTree.PathVisitor() {
+                @Override
+                public void visit(String path, int ordinal) {
+                    filter.put(path.substring(0, path.length() - 6).replace(File.separatorChar, '.'));
+                }
+            });
+            classFilter = filter;
+            classFilterIndexSize = index.size();
+        }
+        if (!classFilter.mightContain(className)) {
+            return false;
         }
+        return index.containsKey(className.replace('.', File.separatorChar).concat(".class"));
+    }
+
+    /**
+     * @param ordinal
+     *            classpath element returned by {@link #findElement(String)}
+     * @return the URL of the classpath element
+     */
+    public URL getElementURL(int ordinal) {
+        return getElement(ordinal);
+    }
+
+    private URL getResourceURL(int ordinal, String name) {
         try {
-            return new URL(delegate, name);
+            URL element = getElement(ordinal);
+            if (isJar(element)) {
+                return new URL("jar:" + element.toExternalForm() + "!/" + name);
+            }
+            return new URL(element, name);
         } catch (MalformedURLException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private static boolean isJar(URL element) {
+        return element.getPath().endsWith(".jar");
+    }
 
-    public List<String> listPackageContents(final String packageName) {
+    /**
+     * Reads the contents of a resource.
+     *
+     * @param ordinal
+     *            classpath element returned by {@link #findElement(String)}
+     * @param name
+     *            resource name
+     * @return the resource contents
+     * @throws IOException
+     *             if the resource cannot be read
+     */
+    public byte[] readResource(int ordinal, String name) throws IOException {
+        URL element = getElement(ordinal);
+        if (keepJarsOpen && isJar(element)) {
+            JarFile jarFile = getOpenJar(ordinal);
+            JarEntry entry = jarFile.getJarEntry(name);
+            if (entry == null) {
+                throw new FileNotFoundException(name + " does not exist in " + element);
+            }
+            InputStream is = jarFile.getInputStream(entry);
+            try {
+                return readFully(is, entry.getSize());
+            } finally {
+                is.close();
+            }
+        }
+        URLConnection connection = getResourceURL(ordinal, name).openConnection();
+        InputStream is = connection.getInputStream();
+        try {
+            return readFully(is, connection.getContentLength());
+        } finally {
+            is.close();
+        }
+    }
 
-        String packageFile = packageName.replaceAll("\\.", File.separator);
-        while (lastIndexed < urls.length) {
-            indexURLs(urls[lastIndexed]);
-            lastIndexed ++;
+    private synchronized JarFile getOpenJar(int ordinal) throws IOException {
+        if (openJars == null) {
+            openJars = new JarFile[urls.length + 1];
+        }
+        JarFile jarFile = openJars[ordinal];
+        if (jarFile == null) {
+            jarFile = new JarFile(new File(getElement(ordinal).getPath()));
+            openJars[ordinal] = jarFile;
+        }
+        return jarFile;
+    }
+
+    private static byte[] readFully(InputStream is, long size) throws IOException {
+        if (size >= 0 && size < Integer.MAX_VALUE) {
+            byte[] data = new byte[(int) size];
+            int offset = 0;
+            while (offset < data.length) {
+                int bytesRead = is.read(data, offset, data.length - offset);
+                if (bytesRead < 0) {
+                    throw new IOException("Unexpected end of stream after " + offset + " of " + size + " bytes");
+                }
+                offset += bytesRead;
+            }
+            return data;
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        int bytesRead;
+        while ((bytesRead = is.read(chunk)) > 0) {
+            outputStream.write(chunk, 0, bytesRead);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Closes the jar files kept open to read the resources.
+     *
+     * @throws IOException
+     *             if some jar file cannot be closed
+     */
+    public synchronized void close() throws IOException {
+        if (openJars != null) {
+            IOException error = null;
+            for (int i = 0; i < openJars.length; i++) {
+                if (openJars[i] != null) {
+                    try {
+                        openJars[i].close();
+                    } catch (IOException e) {
+                        error = e;
+                    }
+                    openJars[i] = null;
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
         }
+    }
+
+
+    /**
+     * Forgets the contents of the classpath elements, so they are scanned again the next time that
+     * a resource is looked up. It must be called when the classes of the classpath directories
+     * change.
+     */
+    public synchronized void refresh() {
+        index = new CompactPathTree();
+        lastIndexed = 0;
+        classFilter = null;
+        classFilterIndexSize = -1;
+    }
+
+    public synchronized List<String> listPackageContents(final String packageName) {
+
+        String packageFile = packageName.replaceAll("\\.", File.separator);
+        indexRemainingURLs();
         return index.list(packageFile);
     }
 
-    public List<String> listSDKContents(final String packageName) {
+    public synchronized List<String> listSDKContents(final String packageName) {
         String packageFile = packageName.replaceAll("\\.", File.separator);
-        indexURLs(RT_JAR);
+        indexURLs(urls.length);
+        saveIndexFile();
         return index.list(packageFile);
     }
 
+    private void indexRemainingURLs() {
+        if (lastIndexed >= urls.length) {
+            return;
+        }
+        if (parallelIndexing && urls.length - lastIndexed > 1) {
+            indexURLsConcurrently();
+        } else {
+            while (lastIndexed < urls.length) {
+                indexURLs(lastIndexed);
+                lastIndexed ++;
+            }
+        }
+        saveIndexFile();
+    }
+
+    private void indexURLsConcurrently() {
+        int pending = urls.length - lastIndexed;
+        int threads = Math.min(Runtime.getRuntime().availableProcessors(), pending);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "classpath-indexer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            List<Future<List<String>>> scans = new ArrayList<Future<List<String>>>(pending);
+            for (int i = lastIndexed; i < urls.length; i++) {
+                final URL url = urls[i];
+                scans.add(executor.submit(new Callable<List<String>>() {
+                    @Override
+                    public List<String> call() throws Exception {
+                        return listResources(url);
+                    }
+                }));
+            }
+            // the resources are merged in classpath order to keep the first-wins semantics
+            for (Future<List<String>> scan : scans) {
+                addResourcesToIndex(getScanResult(scan), lastIndexed);
+                lastIndexed ++;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<String> getScanResult(Future<List<String>> scan) {
+        try {
+            return scan.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("The classpath indexing has been interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
 
-    private void indexURLs(URL url) {
+    private void saveIndexFile() {
+        if (indexFile != null && indexFile.isModified()) {
+            try {
+                indexFile.save();
+            } catch (IOException e) {
+                // the index is just an optimization, the next execution will enumerate the jars again
+                LOG.warn("The classpath index " + indexFile.getFile().getAbsolutePath() + " cannot be written", e);
+            }
+        }
+    }
+
+
+    private URL getElement(int ordinal) {
+        if (ordinal == urls.length) {
+            return RT_JAR;
+        }
+        return urls[ordinal];
+    }
+
+    private void indexURLs(int ordinal) {
+        addResourcesToIndex(listResources(getElement(ordinal)), ordinal);
+    }
+
+    private void addResourcesToIndex(List<String> resources, int ordinal) {
+        for (String name : resources) {
+            maybeIndexResource(name, ordinal);
+        }
+    }
+
+    /**
+     * Lists the resources of a classpath element without modifying the index, so it can be called
+     * from several threads.
+     */
+    private List<String> listResources(URL url) {
        try {
            if (!"file".equals(url.getProtocol())) {
                throw new RuntimeException("Classpath element is not a file: " + url);
@@ -95,30 +450,48 @@ public class IndexedURLClassPath  {
                if (!rootPath.endsWith(File.separator)) {
                    rootPath = rootPath + File.separator;
                }
-               addFilesToIndex(rootPath.length(), root, url);
+               List<String> resources = new ArrayList<String>();
+               addFiles(rootPath.length(), root, resources);
+               return resources;
            } else if (root.isFile() && root.getName().endsWith(".jar")) {
-               JarFile jarFile = new JarFile(root);
-               try {
-                   Enumeration<JarEntry> entries = jarFile.entries();
-                   while (entries.hasMoreElements()) {
-                       JarEntry entry = entries.nextElement();
-                       String name = entry.getName();
-                       maybeIndexResource(name, url);
+               List<String> resources = null;
+               if (indexFile != null) {
+                   resources = indexFile.getResources(root);
+               }
+               if (resources == null) {
+                   resources = listJarEntries(root);
+                   if (indexFile != null) {
+                       indexFile.putResources(root, resources);
                    }
-               } finally {
-                   jarFile.close();
                }
+               return resources;
            }
+           return new ArrayList<String>();
        } catch (IOException e) {
            throw new RuntimeException(e);
        }
     }
 
-    private void addFilesToIndex(int basePrefixLen, File f, URL delegate) throws IOException {
+    private List<String> listJarEntries(File root) throws IOException {
+        List<String> resources = new ArrayList<String>();
+        JarFile jarFile = new JarFile(root);
+        try {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                resources.add(entry.getName());
+            }
+        } finally {
+            jarFile.close();
+        }
+        return resources;
+    }
+
+    private void addFiles(int basePrefixLen, File f, List<String> resources) throws IOException {
         if (f.isDirectory()) {
             if (f.getPath().length() > basePrefixLen) {  // Don't index the root itself.
                 String relPath = f.getPath().substring(basePrefixLen);
-                maybeIndexResource(relPath, delegate);
+                resources.add(relPath);
             }
             File[] directoryEntries = f.listFiles();
 
@@ -126,11 +499,11 @@ public class IndexedURLClassPath  {
               throw new RuntimeException("The list of directories of " + f.getAbsolutePath() + " is null");
             }
             for (int i = 0; i < directoryEntries.length; ++i) {
-                addFilesToIndex(basePrefixLen, directoryEntries[i], delegate);
+                addFiles(basePrefixLen, directoryEntries[i], resources);
             }
         } else {
             String relPath = f.getPath().substring(basePrefixLen);
-            maybeIndexResource(relPath, delegate);
+            resources.add(relPath);
         }
     }
 
@@ -143,14 +516,14 @@ public class IndexedURLClassPath  {
    * do so with or without trailing slashes.  We do this in a while-loop
    * in case the classpath element has multiple superfluous trailing slashes.
    * @param relPath relative path
-   * @param delegate value to insert
+   * @param ordinal classpath element to insert
    */
-    private void maybeIndexResource(String relPath, URL delegate) {
+    private void maybeIndexResource(String relPath, int ordinal) {
 
         if (!index.containsKey(relPath)) {
-            index.put(relPath, delegate);
+            index.put(relPath, ordinal);
             if (relPath.endsWith(File.separator)) {
-                maybeIndexResource(relPath.substring(0, relPath.length() - File.separator.length()), delegate);
+                maybeIndexResource(relPath.substring(0, relPath.length() - File.separator.length()), ordinal);
             }
         }
     }
@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2015 Raquel Pau and Albert Coroleu.
+ *
+ * Walkmod is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Walkmod is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Walkmod. If
+ * not, see <http://www.gnu.org/licenses/>.
+ */
+package org.walkmod.javalang.compiler.types;
+
+/**
+ * Source of class metadata that does not require to define the classes into the JVM. It is used by
+ * {@link TypesLoaderVisitor} to check the visibility and the nested classes of the imported types,
+ * which are then resolved lazily. The symbol types and the inspectors still work with the classes,
+ * so only the types that are used by a compilation unit are loaded.
+ */
+public interface TypeMetadataProvider {
+
+    /**
+     * @param className
+     *            binary name of the class (e.g. <code>java.util.Map$Entry</code>)
+     * @return the metadata of the class or null if it does not exist or it cannot be read.
+     */
+    ClassDescriptor getClassDescriptor(String className);
+}
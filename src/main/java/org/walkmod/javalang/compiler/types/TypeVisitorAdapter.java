@@ -155,7 +155,7 @@ public class TypeVisitorAdapter<A extends Map<String, Object>> extends VoidVisit
     @Override
     public void visit(ArrayCreationExpr n, A arg) {
         SymbolType arrayType = ASTSymbolTypeResolver.getInstance().valueOf(n.getType());
-        arrayType.setArrayCount(n.getArrayCount() > 0 ? n.getArrayCount() : 1);
+        arrayType = arrayType.withArrayCount(n.getArrayCount() > 0 ? n.getArrayCount() : 1);
         n.setSymbolData(arrayType);
         ArrayInitializerExpr expr = n.getInitializer();
         if (expr != null) {
@@ -185,7 +185,6 @@ public class TypeVisitorAdapter<A extends Map<String, Object>> extends VoidVisit
                 SymbolData sd = expr.getSymbolData();
                 if (st == null && sd != null) {
                     st = (SymbolType) sd;
-                    st = st.clone();
 
                 } else if (sd != null) {
                     st = (SymbolType) st.merge(sd);
@@ -193,7 +192,7 @@ public class TypeVisitorAdapter<A extends Map<String, Object>> extends VoidVisit
 
             }
             if (values != null && !values.isEmpty() && st != null) {
-                st.setArrayCount(st.getArrayCount() + 1);
+                st = st.withArrayCount(st.getArrayCount() + 1);
             }
 
             n.setSymbolData(st);
@@ -258,7 +257,7 @@ public class TypeVisitorAdapter<A extends Map<String, Object>> extends VoidVisit
 
     @Override
     public void visit(BooleanLiteralExpr n, A arg) {
-        n.setSymbolData(new SymbolType("boolean"));
+        n.setSymbolData(SymbolType.rawTypeOf(boolean.class));
     }
 
     @Override
@@ -269,7 +268,7 @@ public class TypeVisitorAdapter<A extends Map<String, Object>> extends VoidVisit
 
     @Override
     public void visit(CharLiteralExpr n, A arg) {
-        n.setSymbolData(new SymbolType("char"));
+        n.setSymbolData(SymbolType.rawTypeOf(char.class));
     }
 
     @Override
@@ -279,7 +278,7 @@ public class TypeVisitorAdapter<A extends Map<String, Object>> extends VoidVisit
         SymbolType st = (SymbolType) n.getType().getSymbolData();
         SymbolType aux = new SymbolType("java.lang.Class");
         List<SymbolType> args = new LinkedList<SymbolType>();
-        args.add(st.clone());
+        args.add(st.cloneIfMutable());
         aux.setParameterizedTypes(args);
         n.setSymbolData(aux);
     }
@@ -342,14 +341,14 @@ public class TypeVisitorAdapter<A extends Map<String, Object>> extends VoidVisit
     @Override
     public void visit(DoubleLiteralExpr n, A arg) {
         String value = n.getValue();
-        String typeName = "double";
+        Class<?> type = double.class;
         if (value != null) {
             char lastChar = value.charAt(value.length() - 1);
             if (Character.toLowerCase(lastChar) == 'f') {
-                typeName = "float";
+                type = float.class;
             }
         }
-        n.setSymbolData(new SymbolType(typeName));
+        n.setSymbolData(SymbolType.rawTypeOf(type));
     }
 
     @Override
@@ -401,27 +400,27 @@ public class TypeVisitorAdapter<A extends Map<String, Object>> extends VoidVisit
     @Override
     public void visit(InstanceOfExpr n, A arg) {
         super.visit(n, arg);
-        n.setSymbolData(new SymbolType("boolean"));
+        n.setSymbolData(SymbolType.rawTypeOf(boolean.class));
     }
 
     @Override
     public void visit(IntegerLiteralExpr n, A arg) {
-        n.setSymbolData(new SymbolType("int"));
+        n.setSymbolData(SymbolType.rawTypeOf(int.class));
     }
 
     @Override
     public void visit(IntegerLiteralMinValueExpr n, A arg) {
-        n.setSymbolData(new SymbolType("int"));
+        n.setSymbolData(SymbolType.rawTypeOf(int.class));
     }
 
     @Override
     public void visit(LongLiteralExpr n, A arg) {
-        n.setSymbolData(new SymbolType("long"));
+        n.setSymbolData(SymbolType.rawTypeOf(long.class));
     }
 
     @Override
     public void visit(LongLiteralMinValueExpr n, A arg) {
-        n.setSymbolData(new SymbolType("long"));
+        n.setSymbolData(SymbolType.rawTypeOf(long.class));
     }
 
     @Override
@@ -491,9 +490,7 @@ public class TypeVisitorAdapter<A extends Map<String, Object>> extends VoidVisit
                         n.setSymbolData(aux);
 
                     } else {
-                        SymbolType result = s.getType().clone();
-                        result.setMethod(m);
-                        n.setSymbolData(result);
+                        n.setSymbolData(s.getType().withMethod(m));
                     }
                 } else {
                     lookUpMethodByReflection = true;
@@ -708,7 +705,7 @@ public class TypeVisitorAdapter<A extends Map<String, Object>> extends VoidVisit
 
     @Override
     public void visit(StringLiteralExpr n, A arg) {
-        n.setSymbolData(new SymbolType("java.lang.String"));
+        n.setSymbolData(SymbolType.rawTypeOf(String.class));
     }
 
     @Override
@@ -726,7 +723,7 @@ public class TypeVisitorAdapter<A extends Map<String, Object>> extends VoidVisit
                 Scope scope = sType.getInnerScope();
                 sType = scope.findSymbol("super");
                 if (sType != null) {
-                    st = sType.getType().clone();
+                    st = sType.getType().cloneIfMutable();
                     useReflection = false;
                 }
             }
@@ -752,7 +749,7 @@ public class TypeVisitorAdapter<A extends Map<String, Object>> extends VoidVisit
         } else {
             classExpr.accept(this, arg);
             SymbolType st = (SymbolType) classExpr.getSymbolData();
-            n.setSymbolData(st.clone());
+            n.setSymbolData(st.cloneIfMutable());
         }
         if (semanticVisitor != null) {
             n.accept(semanticVisitor, arg);
@@ -890,7 +887,7 @@ public class TypeVisitorAdapter<A extends Map<String, Object>> extends VoidVisit
                 // we try to look the type into the symbol table
                 Symbol<?> s = symbolTable.lookUpSymbolForRead(typeName, n, ReferenceType.TYPE, ReferenceType.VARIABLE);
                 if (s != null) {
-                    type = s.getType().clone();
+                    type = s.getType().cloneIfMutable();
                 } else {
                     // if we don't find it, it is a full type name
                     Class<?> clazz = null;
@@ -969,7 +966,7 @@ public class TypeVisitorAdapter<A extends Map<String, Object>> extends VoidVisit
                             ReferenceType.VARIABLE);
                 }
                 if (s != null) {
-                    type = s.getType().clone();
+                    type = s.getType().cloneIfMutable();
 
                 } else {
 
@@ -982,9 +979,10 @@ public class TypeVisitorAdapter<A extends Map<String, Object>> extends VoidVisit
         }
         if (type != null) {
             List<Type> args = n.getTypeArgs();
+            List<SymbolType> parameterizedTypes = null;
 
             if (args != null && !args.isEmpty()) {
-                List<SymbolType> parameterizedTypes = new LinkedList<SymbolType>();
+                parameterizedTypes = new LinkedList<SymbolType>();
                 TypeVariable<?>[] vars = type.getClazz().getTypeParameters();
                 int idx = 0;
                 for (Type currentArg : args) {
@@ -1017,10 +1015,11 @@ public class TypeVisitorAdapter<A extends Map<String, Object>> extends VoidVisit
                     }
                     parameterizedTypes.add(st);
                 }
-                type.setParameterizedTypes(parameterizedTypes);
+            }
+            if (type.isFrozen()) {
+                type = type.withParameterizedTypes(parameterizedTypes);
             } else {
-                type.setParameterizedTypes(null);
-
+                type.setParameterizedTypes(parameterizedTypes);
             }
             n.setSymbolData(type);
         }
@@ -1055,8 +1054,7 @@ public class TypeVisitorAdapter<A extends Map<String, Object>> extends VoidVisit
         SymbolType newType = null;
         SymbolType st = (SymbolType) n.getType().getSymbolData();
         if (st != null) {
-            newType = st.clone();
-            newType.setArrayCount(n.getArrayCount());
+            newType = st.withArrayCount(n.getArrayCount());
         }
         n.setSymbolData(newType);
     }
@@ -1144,12 +1142,13 @@ public class TypeVisitorAdapter<A extends Map<String, Object>> extends VoidVisit
                     if (id != null) {
                         int arrayCount = id.getArrayCount();
                         if (arrayCount > 0) {
-                            typeArgs[i].setArrayCount(typeArgs[i].getArrayCount() + arrayCount);
+                            typeArgs[i] = typeArgs[i].withArrayCount(typeArgs[i].getArrayCount() + arrayCount);
                         }
                     }
                     if (param.isVarArgs()) {
-                        typeArgs[i].setArrayCount(typeArgs[i].getArrayCount() + 1);
+                        typeArgs[i] = typeArgs[i].withArrayCount(typeArgs[i].getArrayCount() + 1);
                     }
+                    param.getType().setSymbolData(typeArgs[i]);
 
                 }
 
@@ -1180,9 +1179,7 @@ public class TypeVisitorAdapter<A extends Map<String, Object>> extends VoidVisit
                 );
             }
             SymbolType typeData = (SymbolType) n.getType().getSymbolData();
-            SymbolType methodType = typeData.clone();
-            methodType.setMethod(st.getMethod());
-            n.setSymbolData(methodType);
+            n.setSymbolData(typeData.withMethod(st.getMethod()));
         } catch (Exception e) {
             throw new NoSuchExpressionTypeException("Error resolving the signature of the method " + n.getName()
                     + " at [" + n.getBeginLine() + ", " + n.getBeginColumn() + "]", e);
@@ -23,6 +23,7 @@ import org.walkmod.javalang.ast.expr.DoubleLiteralExpr;
 import org.walkmod.javalang.ast.expr.IntegerLiteralExpr;
 import org.walkmod.javalang.ast.expr.LiteralExpr;
 import org.walkmod.javalang.ast.expr.LongLiteralExpr;
+import org.walkmod.javalang.compiler.reflection.ClassMetadata;
 
 public class Types {
 
@@ -106,12 +107,14 @@ public class Types {
         if (fromClass == null || toClass == null) {
             return true;
         }
-        if (matrixTypePosition.containsKey(fromClass.getName()) && matrixTypePosition.containsKey(toClass.getName())) {
-            return compatibilityMatrix[matrixTypePosition.get(fromClass.getName())][matrixTypePosition
-                    .get(toClass.getName())];
+        final ClassMetadata from = ClassMetadata.of(fromClass);
+        final int fromKey = from.getBasicTypeOrder();
+        final int toKey = ClassMetadata.of(toClass).getBasicTypeOrder();
+        if (fromKey != -1 && toKey != -1) {
+            return compatibilityMatrix[fromKey][toKey];
         } else {
             if (fromClass.isPrimitive() && !toClass.isPrimitive()) {
-                fromClass = inverseWrapperClasses.get(fromClass.getName());
+                fromClass = from.getWrapperClass();
             }
             return toClass.isAssignableFrom(fromClass);
         }
@@ -122,13 +125,14 @@ public class Types {
         if (fromClass == null || toClass == null) {
             return true;
         }
-        final Integer fromKey = matrixTypePosition.get(fromClass.getName());
-        final Integer toKey = matrixTypePosition.get(toClass.getName());
-        if (fromKey != null && toKey != null) {
+        final ClassMetadata from = ClassMetadata.of(fromClass);
+        final int fromKey = from.getBasicTypeOrder();
+        final int toKey = ClassMetadata.of(toClass).getBasicTypeOrder();
+        if (fromKey != -1 && toKey != -1) {
             return compatibilityMatrix[fromKey][toKey];
         } else {
             if (fromClass.isPrimitive() && !toClass.isPrimitive()) {
-                fromClass = inverseWrapperClasses.get(fromClass.getName());
+                fromClass = from.getWrapperClass();
             }
             return toClass.isAssignableFrom(fromClass);
         }
@@ -136,13 +140,16 @@ public class Types {
     }
 
     public static Integer basicTypeEvaluationOrder(Class<?> clazz) {
+        final int order = ClassMetadata.of(clazz).getBasicTypeOrder();
+        return order == -1 ? null : order;
+    }
 
-        return matrixTypePosition.get(clazz.getName());
-
+    public static Integer basicTypeEvaluationOrder(String className) {
+        return matrixTypePosition.get(className);
     }
 
     public static boolean isPrimitive(Class<?> clazz) {
-        return clazz.isPrimitive() || wrapperClasses.containsKey(clazz.getName());
+        return clazz.isPrimitive() || ClassMetadata.of(clazz).isWrapper();
     }
 
     public static boolean isCompatible(Class<?>[] fromClasses, Class<?>[] toClasses) {
@@ -16,7 +16,6 @@ package org.walkmod.javalang.compiler.types;
 
 import java.io.File;
 import java.lang.reflect.Modifier;
-import java.net.URLClassLoader;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -36,13 +35,16 @@ import org.walkmod.javalang.ast.expr.QualifiedNameExpr;
 import org.walkmod.javalang.ast.type.Type;
 import org.walkmod.javalang.compiler.actions.LoadStaticImportsAction;
 import org.walkmod.javalang.compiler.providers.SymbolActionProvider;
+import org.walkmod.javalang.compiler.reflection.ClassMetadata;
 import org.walkmod.javalang.compiler.symbols.ASTSymbolTypeResolver;
+import org.walkmod.javalang.compiler.symbols.DefaultSymbolFactory;
 import org.walkmod.javalang.compiler.symbols.ReferenceType;
 import org.walkmod.javalang.compiler.symbols.Scope;
 import org.walkmod.javalang.compiler.symbols.Symbol;
 import org.walkmod.javalang.compiler.symbols.SymbolAction;
 import org.walkmod.javalang.compiler.symbols.SymbolTable;
 import org.walkmod.javalang.compiler.symbols.SymbolType;
+import org.walkmod.javalang.compiler.types.ClassDescriptor.InnerClassEntry;
 import org.walkmod.javalang.visitors.VoidVisitorAdapter;
 
 /**
@@ -61,10 +63,14 @@ public class TypesLoaderVisitor<T> extends VoidVisitorAdapter<T> {
 
     private String packageName = null;
 
-    private static CachedClassLoader classLoader =
-            new CachedClassLoader(new IndexedURLClassLoader(Thread.currentThread().getContextClassLoader()));
+    private AnalysisContext analysisContext;
 
-    private static ClassLoader applicationClassLoader = null;
+    private CachedClassLoader classLoader;
+
+    private TypeMetadataProvider metadataProvider;
+
+    /** read-only scope of the package whose types are being loaded or null */
+    private Scope packageScope = null;
 
     private SymbolTable symbolTable = null;
 
@@ -74,41 +80,121 @@ public class TypesLoaderVisitor<T> extends VoidVisitorAdapter<T> {
 
     private Node startingNode = null;
 
-    private static List<String> SDKFiles = new LinkedList<>();
-
     public TypesLoaderVisitor(SymbolTable symbolTable, SymbolActionProvider actionProvider,
             List<SymbolAction> actions) {
         this.symbolTable = symbolTable;
         this.actions = actions;
         this.actionProvider = actionProvider;
+        setAnalysisContext(AnalysisContext.getCurrent());
     }
 
-    private void loadPrimitives() {
-        for (String defaultType : CachedClassLoader.PRIMITIVES.keySet()) {
-            SymbolType st = new SymbolType(CachedClassLoader.PRIMITIVES.get(defaultType));
-            symbolTable.pushSymbol(defaultType, ReferenceType.TYPE, st, null, actions);
-
+    /**
+     * Makes the primitive types and the types of java.lang visible from the current scope. They
+     * are kept in a read-only scope that is built once per analysis context, so only the symbols
+     * that the compilation unit looks up are copied into its symbol table.
+     */
+    private void loadBaseScope() {
+        Scope base = analysisContext.getBaseScope();
+        if (base == null) {
+            base = new Scope();
+            DefaultSymbolFactory factory = new DefaultSymbolFactory();
+            for (String defaultType : CachedClassLoader.PRIMITIVES.keySet()) {
+                SymbolType st = SymbolType.rawTypeOf(CachedClassLoader.PRIMITIVES.get(defaultType));
+                base.addSymbol(factory.create(defaultType, ReferenceType.TYPE, st, null));
+            }
+            for (String sdkFile : analysisContext.getSDKFiles()) {
+                if (isClassFile(sdkFile) && !isAnonymousClass(sdkFile)) {
+                    String fullName = toClassName(sdkFile);
+                    base.addSymbol(factory.create(resolveSymbolName(fullName, false, false), ReferenceType.TYPE,
+                            new SymbolType(fullName), null));
+                }
+            }
+            base.freeze();
+            analysisContext.setBaseScope(base);
         }
+        symbolTable.getScopes().peek().addParent(base, actions);
     }
 
-    private void loadLangPackage() {
-        for(String sdkFile: SDKFiles) {
-            if (isClassFile(sdkFile) && !isAnonymousClass(sdkFile)) {
-                    String asClass = sdkFile.replaceAll(File.separator, "\\.");
-                    String fullName = asClass.substring(0, asClass.length() - 6); //extract .class
-                    symbolTable.pushSymbol(resolveSymbolName(fullName, false, false), ReferenceType.TYPE, new SymbolType(fullName), null, actions);
-            }
-        }
+    private String toClassName(String classFile) {
+        String asClass = classFile.replaceAll(File.separator, "\\.");
+        return asClass.substring(0, asClass.length() - 6); //extract .class
     }
 
-    private void addTypes(List<String> files, List<SymbolAction> actions, Node node) {
-        for (String classFile: files) {
-            if (isClassFile(classFile) && !isAnonymousClass(classFile)) {
-                String asClass = classFile.replaceAll(File.separator, "\\.");
-                String fullName = asClass.substring(0, asClass.length() - 6); //extract .class
-                addType(fullName, false, node, actions);
+    /**
+     * Returns the read-only scope with the types of a package, which is built once per analysis
+     * context. The types are added like {@link #addType} pushes them into the symbol table, so the
+     * classes that cannot be resolved are also resolved once.
+     */
+    private Scope getPackageScope(String packageName) {
+        Scope scope = analysisContext.getPackageScope(packageName);
+        if (scope == null) {
+            scope = new Scope();
+            packageScope = scope;
+            try {
+                for (String classFile : classLoader.getPackageContents(packageName)) {
+                    if (isClassFile(classFile) && !isAnonymousClass(classFile)) {
+                        addType(toClassName(classFile), false, null, null);
+                    }
+                }
+            } finally {
+                packageScope = null;
             }
+            scope.freeze();
+            scope = analysisContext.putPackageScope(packageName, scope);
         }
+        return scope;
+    }
+
+    /**
+     * @return the same name of {@link Class#getCanonicalName()}
+     */
+    private String getCanonicalName(ClassDescriptor descriptor) {
+        if (descriptor.isAnonymousClass() || descriptor.isLocalClass()) {
+            return null;
+        }
+        if (!descriptor.isMemberClass()) {
+            return descriptor.getName();
+        }
+        String declaringName = descriptor.getDeclaringClassName();
+        ClassDescriptor declaring = metadataProvider.getClassDescriptor(declaringName);
+        String enclosing = declaring != null ? getCanonicalName(declaring) : declaringName.replace('$', '.');
+        if (enclosing == null) {
+            return null;
+        }
+        return enclosing + "." + descriptor.getSimpleName();
+    }
+
+    /**
+     * Pushes a type into the symbol table or, while the types of a package are loaded, into the
+     * scope of the package.
+     *
+     * @param flags
+     *            how the symbol is copied from the scope of the package, see
+     *            {@link Scope#addSharedSymbol(Symbol, int)}
+     */
+    private Symbol<?> pushType(String name, SymbolType st, Node node, List<SymbolAction> actions, boolean override,
+            int flags) {
+        if (packageScope != null) {
+            Symbol<?> symbol = new DefaultSymbolFactory().create(name, ReferenceType.TYPE, st, null);
+            packageScope.addSharedSymbol(symbol, flags);
+            return symbol;
+        }
+        if (actions == null) {
+            return symbolTable.pushSymbol(name, ReferenceType.TYPE, st, node, override);
+        }
+        return symbolTable.pushSymbol(name, ReferenceType.TYPE, st, node, actions, override);
+    }
+
+    /**
+     * @return if the simple name of a member class of the package is pushed. It happens when the
+     *         package of the compilation unit is imported, so the scope of a package adds them as
+     *         optional symbols.
+     */
+    private boolean isSimpleNameVisible(String classPackage, Node node) {
+        if (packageScope != null) {
+            return true;
+        }
+        return node != null && classPackage.equals(packageName);
     }
 
     private boolean isClassFile(String classFile) {
@@ -160,25 +246,42 @@ public class TypesLoaderVisitor<T> extends VoidVisitorAdapter<T> {
         return simpleName;
     }
 
+    /**
+     * Uses the analysis context of a classloader and activates it for the current thread. The
+     * default context of the other threads is not modified.
+     *
+     * @param cl
+     *            classloader of the analyzed project
+     */
     public void setClassLoader(ClassLoader cl) {
-        if (applicationClassLoader != cl) {
-            applicationClassLoader = cl;
-            if (cl instanceof URLClassLoader) {
-                URLClassLoader aux = (URLClassLoader) cl;
-                IndexedURLClassLoader icl = new IndexedURLClassLoader(aux.getURLs(), aux.getParent());
-                classLoader = new CachedClassLoader(icl);
-
-            } else {
-                classLoader = new CachedClassLoader(new IndexedURLClassLoader(cl));
-            }
-            SDKFiles = classLoader.getSDKContents("java.lang");
-        }
+        AnalysisContext context = AnalysisContext.forClassLoader(cl);
+        context.activate();
+        setAnalysisContext(context);
+    }
 
+    public void setAnalysisContext(AnalysisContext analysisContext) {
+        this.analysisContext = analysisContext;
+        this.classLoader = analysisContext.getClassLoader();
+        this.metadataProvider = analysisContext.getMetadataProvider();
+    }
 
+    public AnalysisContext getAnalysisContext() {
+        return analysisContext;
     }
 
+    /**
+     * @return the classloader of the current analysis context.
+     */
     public static CachedClassLoader getClassLoader() {
-        return classLoader;
+        return AnalysisContext.getCurrent().getClassLoader();
+    }
+
+    /**
+     * @return the metadata of the classes of the current analysis context, read without defining
+     *         them.
+     */
+    public static TypeMetadataProvider getMetadataProvider() {
+        return AnalysisContext.getCurrent().getMetadataProvider();
     }
 
     private SymbolType buildSymbolType(TypeDeclaration type) {
@@ -376,12 +479,14 @@ public class TypesLoaderVisitor<T> extends VoidVisitorAdapter<T> {
         Class<?> result = null;
         boolean finish = false;
         while (result == null && !finish) {
-            try {
-                result = Class.forName(className, false, classLoader);
-
-                finish = true;
-
-            } catch (Throwable e) {
+            if (classLoader.isLoadable(className)) {
+                try {
+                    result = Class.forName(className, false, classLoader);
+                } catch (Throwable e) {
+                    result = null;
+                }
+            }
+            if (result == null) {
                 int index = className.lastIndexOf('.');
                 if (index != -1) {
                     String aux = className.substring(0, index) + "$" + className.substring(index + 1);
@@ -447,22 +552,86 @@ public class TypesLoaderVisitor<T> extends VoidVisitorAdapter<T> {
     * @param importedInner {@link @see #resolveSymbolName}
     */
     private void loadNestedClasses(Class<?> clazz, boolean imported, Node node, final boolean importedInner) {
-        Class<?>[] innerClasses = clazz.getDeclaredClasses();
+        for (Class<?> nestedClass : getNestedClasses(clazz)) {
+            String fullName = nestedClass.getName();
+            SymbolType st = SymbolType.rawTypeOf(nestedClass);
+            pushType(resolveSymbolName(fullName, imported, importedInner), st, node, null, true,
+                    Scope.OVERRIDE | Scope.WITHOUT_ACTIONS);
+        }
+    }
+
+    /**
+    * @param importedInner {@link @see #resolveSymbolName}
+    */
+    private void loadNestedClasses(ClassDescriptor descriptor, boolean imported, Node node,
+            final boolean importedInner) {
+        for (InnerClassEntry nestedClass : getNestedClasses(descriptor)) {
+            String fullName = nestedClass.getName();
+            pushType(resolveSymbolName(fullName, imported, importedInner), SymbolType.lazyClassOf(fullName), node, null,
+                    true, Scope.OVERRIDE | Scope.WITHOUT_ACTIONS);
+        }
+    }
+
+    /**
+     * @return the non private nested classes
+     */
+    private List<InnerClassEntry> getNestedClasses(ClassDescriptor descriptor) {
+        List<InnerClassEntry> result = new LinkedList<InnerClassEntry>();
+        // the private nested classes are not defined
+        for (InnerClassEntry nested : descriptor.getDeclaredClasses()) {
+            if (!Modifier.isPrivate(nested.getModifiers())) {
+                result.add(nested);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the non private nested classes
+     */
+    private List<Class<?>> getNestedClasses(Class<?> clazz) {
+        List<Class<?>> result = new LinkedList<Class<?>>();
+        Class<?>[] innerClasses = ClassMetadata.of(clazz).getDeclaredClasses();
         if (innerClasses != null) {
             for (int i = 0; i < innerClasses.length; i++) {
                 if (!Modifier.isPrivate(innerClasses[i].getModifiers())) {
-                    String fullName = innerClasses[i].getName();
-                    SymbolType st = new SymbolType(innerClasses[i]);
-                    symbolTable.pushSymbol(resolveSymbolName(fullName, imported, importedInner), ReferenceType.TYPE, st,
-                            node, true);
+                    result.add(innerClasses[i]);
                 }
             }
-
         }
+        return result;
     }
 
     private void addType(final String name, boolean imported, Node node, List<SymbolAction> actions) {
         if (classLoader != null && name != null) {
+            ClassDescriptor descriptor = metadataProvider.getClassDescriptor(name);
+            if (descriptor != null) {
+                // the private and anonymous classes are not visible, so they are not pushed
+                if (!Modifier.isPrivate(descriptor.getModifiers()) && !descriptor.isAnonymousClass()) {
+                    boolean overrideSimpleName =
+                            !(node instanceof ImportDeclaration && ((ImportDeclaration) node).isAsterisk());
+                    // the class is not loaded until the compilation unit uses it
+                    SymbolType st = SymbolType.lazyClassOf(descriptor.getName());
+                    pushType(resolveSymbolName(name, imported, false), st, node, actions, overrideSimpleName, 0);
+                    if (descriptor.isMemberClass()) {
+                        String cname = getCanonicalName(descriptor);
+                        if (cname != null) {
+                            pushType(cname, st, node, actions, true, Scope.OVERRIDE);
+                            String pkg = descriptor.getPackageName();
+                            if (!"".equals(pkg) && isSimpleNameVisible(pkg, node)) {
+                                pushType(descriptor.getSimpleName(), st, node, actions, true,
+                                        Scope.OVERRIDE | Scope.OPTIONAL);
+                            }
+                        }
+                    }
+                    loadNestedClasses(descriptor, imported, node, true);
+                }
+                return;
+            }
+            if (!classLoader.isLoadable(name)) {
+                loadInnerClass(name, imported, node, actions);
+                return;
+            }
             try {
                 Class<?> clazz = Class.forName(name, false, classLoader);
                 if (!Modifier.isPrivate(clazz.getModifiers()) && !clazz.isAnonymousClass()) {
@@ -477,20 +646,19 @@ public class TypesLoaderVisitor<T> extends VoidVisitorAdapter<T> {
                             overrideSimpleName = false;
                         }
                     }
-                    symbolTable.pushSymbol(resolveSymbolName(name, imported, false), ReferenceType.TYPE, st, node,
-                            actions, overrideSimpleName);
+                    pushType(resolveSymbolName(name, imported, false), st, node, actions, overrideSimpleName, 0);
 
                     if (clazz.isMemberClass()) {
                         String cname = clazz.getCanonicalName();
                         if (cname != null) {
-                            symbolTable.pushSymbol(cname, ReferenceType.TYPE, st, node, actions, true);
+                            pushType(cname, st, node, actions, true, Scope.OVERRIDE);
 
                             Package pkg = clazz.getPackage();
                             if (pkg != null) {
-                                if (pkg.getName().equals(packageName) && node != null) {
+                                if (isSimpleNameVisible(pkg.getName(), node)) {
 
-                                    symbolTable.pushSymbol(clazz.getSimpleName(), ReferenceType.TYPE, st, node, actions,
-                                            true);
+                                    pushType(clazz.getSimpleName(), st, node, actions, true,
+                                            Scope.OVERRIDE | Scope.OPTIONAL);
                                 }
                             }
                         }
@@ -520,14 +688,33 @@ public class TypesLoaderVisitor<T> extends VoidVisitorAdapter<T> {
 
             String internalName = preffix + "$" + suffix;
 
+            if (!classLoader.isLoadable(internalName)) {
+                int indexDot = internalName.indexOf(".");
+                if (indexDot == -1) {
+                    throw new RuntimeException("The referenced class " + internalName + " does not exists");
+                }
+                loadInnerClass(internalName, imported, node, actions);
+                return;
+            }
+            ClassDescriptor descriptor = metadataProvider.getClassDescriptor(internalName);
+            if (descriptor != null) {
+                if (!Modifier.isPrivate(descriptor.getModifiers())) {
+                    String keyName = resolveSymbolName(internalName, imported, false);
+                    SymbolType st = SymbolType.lazyClassOf(internalName);
+                    Symbol<?> pushedSymbol = pushType(keyName, st, node, actions, true, Scope.OVERRIDE);
+                    if (pushedSymbol != null) {
+                        loadNestedClasses(descriptor, imported, node, false);
+                    }
+                }
+                return;
+            }
             try {
                 Class<?> clazz = Class.forName(internalName, false, classLoader);
 
                 if (!Modifier.isPrivate(clazz.getModifiers())) {
                     String keyName = resolveSymbolName(internalName, imported, false);
                     SymbolType st = new SymbolType(clazz);
-                    Symbol<?> pushedSymbol =
-                            symbolTable.pushSymbol(keyName, ReferenceType.TYPE, st, node, actions, true);
+                    Symbol<?> pushedSymbol = pushType(keyName, st, node, actions, true, Scope.OVERRIDE);
                     if (pushedSymbol != null) {
                         loadNestedClasses(clazz, imported, node, false);
                     }
@@ -554,15 +741,21 @@ public class TypesLoaderVisitor<T> extends VoidVisitorAdapter<T> {
         }
     }
 
+    /**
+     * Makes the types of a package visible from the current scope. The compilation unit only
+     * copies the types that it looks up from the shared scope of the package.
+     */
     private void loadClassesFromPackage(String packageName, List<SymbolAction> actions, Node node) {
-        addTypes(classLoader.getPackageContents(packageName), actions, node);
+        Scope scope = getPackageScope(packageName);
+        boolean asterisk = node instanceof ImportDeclaration && ((ImportDeclaration) node).isAsterisk();
+        symbolTable.getScopes().peek().addParent(scope, actions, node, !asterisk,
+                node != null && packageName.equals(this.packageName));
     }
 
     @Override
     public void visit(CompilationUnit cu, T context) {
 
-        loadPrimitives();
-        loadLangPackage();
+        loadBaseScope();
 
         if (cu.getPackage() != null) {
             contextName = cu.getPackage().getName().toString();
@@ -19,6 +19,7 @@ import junit.framework.Assert;
 import org.junit.Test;
 
 import org.walkmod.javalang.compiler.symbols.ReferenceType;
+import org.walkmod.javalang.compiler.symbols.Scope;
 import org.walkmod.javalang.compiler.symbols.Symbol;
 import org.walkmod.javalang.compiler.symbols.SymbolTable;
 import org.walkmod.javalang.compiler.symbols.SymbolType;
@@ -63,4 +64,46 @@ public class SymbolTableTest {
         st.pushScope();
     }
 
+    @Test
+    public void testPushTheSameScopeTwice() {
+        SymbolTable st = new SymbolTable();
+        Scope outer = new Scope();
+        st.pushScope(outer);
+        st.pushSymbol("a", ReferenceType.VARIABLE, new SymbolType("java.lang.String"), null);
+        st.pushScope();
+        st.pushSymbol("a", ReferenceType.VARIABLE, new SymbolType("int"), null);
+        st.pushScope(outer);
+        Assert.assertEquals("java.lang.String", st.findSymbol("a", ReferenceType.VARIABLE).getType().getName());
+        st.pushSymbol("b", ReferenceType.VARIABLE, new SymbolType("long"), null);
+
+        st.popScope();
+        Assert.assertEquals("int", st.findSymbol("a", ReferenceType.VARIABLE).getType().getName());
+        Assert.assertEquals("long", st.findSymbol("b", ReferenceType.VARIABLE).getType().getName());
+        st.popScope();
+        Assert.assertEquals("java.lang.String", st.findSymbol("a", ReferenceType.VARIABLE).getType().getName());
+        Assert.assertEquals("long", st.findSymbol("b", ReferenceType.VARIABLE).getType().getName());
+        st.popScope();
+        Assert.assertNull(st.findSymbol("a", ReferenceType.VARIABLE));
+    }
+
+    @Test
+    public void testPushTheSameScopeInTwoTables() {
+        Scope shared = new Scope();
+        SymbolTable first = new SymbolTable();
+        SymbolTable second = new SymbolTable();
+        first.pushScope(shared);
+        second.pushScope(shared);
+
+        second.pushSymbol("a", ReferenceType.VARIABLE, new SymbolType("int"), null);
+        Assert.assertNotNull(first.findSymbol("a", ReferenceType.VARIABLE));
+        Assert.assertNotNull(second.findSymbol("a", ReferenceType.VARIABLE));
+
+        first.popScope();
+        second.pushSymbol("b", ReferenceType.VARIABLE, new SymbolType("int"), null);
+        Assert.assertNotNull(second.findSymbol("b", ReferenceType.VARIABLE));
+        first.pushScope(shared);
+        Assert.assertNotNull(first.findSymbol("b", ReferenceType.VARIABLE));
+        first.popScope();
+        second.popScope();
+    }
 }
@@ -22,6 +22,7 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 
 import javax.lang.model.SourceVersion;
 
@@ -58,9 +59,14 @@ import org.walkmod.javalang.ast.stmt.TryStmt;
 import org.walkmod.javalang.ast.type.ClassOrInterfaceType;
 import org.walkmod.javalang.compiler.actions.ReferencesCounterAction;
 import org.walkmod.javalang.compiler.providers.RemoveUnusedSymbolsProvider;
+import org.walkmod.javalang.compiler.symbols.ReferenceType;
+import org.walkmod.javalang.compiler.symbols.Symbol;
 import org.walkmod.javalang.compiler.symbols.SymbolAction;
+import org.walkmod.javalang.compiler.symbols.SymbolTable;
 import org.walkmod.javalang.compiler.symbols.SymbolType;
 import org.walkmod.javalang.compiler.symbols.SymbolVisitorAdapter;
+import org.walkmod.javalang.compiler.types.AnalysisContext;
+import org.walkmod.javalang.compiler.types.TypesLoaderVisitor;
 import org.walkmod.javalang.compiler.test.assertj.AstAssertions;
 import org.walkmod.javalang.compiler.test.assertj.BlockStmtAssert;
 import org.walkmod.javalang.compiler.test.assertj.ClassOrInterfaceDeclarationAssert;
@@ -125,6 +131,29 @@ public class SymbolVisitorAdapterTest extends SymbolVisitorAdapterTestSupport {
         Assert.assertTrue(counter.getReadsCounter() > 0);
     }
 
+    @Test
+    public void testActionsReceiveThePushOfTheBaseTypesThatAreUsed() throws Exception {
+        final List<String> pushed = new LinkedList<String>();
+        List<SymbolAction> actions = new LinkedList<SymbolAction>();
+        actions.add(new SymbolAction() {
+            @Override
+            public void doPush(Symbol<?> symbol, SymbolTable table) {
+                if (symbol.getReferenceType() == ReferenceType.TYPE) {
+                    pushed.add(symbol.getType().getName());
+                }
+            }
+        });
+        CompilationUnit cu = compile("public class A { String name; }");
+        SymbolVisitorAdapter<HashMap<String, Object>> visitor = new SymbolVisitorAdapter<HashMap<String, Object>>();
+        visitor.setClassLoader(getClassLoader());
+        visitor.setSymbolActions(actions);
+        visitor.visit(cu, new HashMap<String, Object>());
+
+        Assert.assertTrue(pushed.contains("A"));
+        Assert.assertTrue(pushed.contains("java.lang.String"));
+        Assert.assertFalse(pushed.contains("java.lang.Integer"));
+    }
+
     private CompilationUnit runRemoveUnusedMembers(String... code) throws Exception {
 
         CompilationUnit cu = compile(code);
@@ -1416,6 +1445,22 @@ public class SymbolVisitorAdapterTest extends SymbolVisitorAdapterTestSupport {
         Assert.assertNotNull(cu.getImports().get(0).getUsages());
     }
 
+    @Test
+    public void testInheritedMethodsOfAClasspathClassWithOtherTypeArguments() throws Exception {
+        CompilationUnit first = run(
+                "import java.util.ArrayList; public class A extends ArrayList<String> { Object foo() { return get(0); } }");
+        CompilationUnit second = run(
+                "import java.util.ArrayList; public class B extends ArrayList<Integer> { Object foo() { return get(0); } }");
+
+        MethodDeclaration md = (MethodDeclaration) first.getTypes().get(0).getMembers().get(0);
+        ReturnStmt stmt = (ReturnStmt) md.getBody().getStmts().get(0);
+        Assert.assertEquals("java.lang.String", stmt.getExpr().getSymbolData().getName());
+
+        md = (MethodDeclaration) second.getTypes().get(0).getMembers().get(0);
+        stmt = (ReturnStmt) md.getBody().getStmts().get(0);
+        Assert.assertEquals("java.lang.Integer", stmt.getExpr().getSymbolData().getName());
+    }
+
     @Test
     public void testMethodsOrderAsStaticImport() throws Exception {
         String importedClass =
@@ -1853,6 +1898,25 @@ public class SymbolVisitorAdapterTest extends SymbolVisitorAdapterTestSupport {
         }
     }
 
+    @Test
+    public void testDefaultMethodsThatReturnSharedTypes() throws Exception {
+        if (SourceVersion.latestSupported().ordinal() >= 8) {
+            String code = "public class A { interface B{ default String foo() { return \"Hi\"; }}"
+                    + " class D implements B{ int bar(){ return this.foo().length();}}}";
+            CompilationUnit cu = run(code);
+            ClassOrInterfaceDeclaration type = (ClassOrInterfaceDeclaration) cu.getTypes().get(0).getMembers().get(1);
+            MethodDeclaration md = (MethodDeclaration) type.getMembers().get(0);
+            ReturnStmt stmt = (ReturnStmt) md.getBody().getStmts().get(0);
+            MethodCallExpr expr = (MethodCallExpr) stmt.getExpr();
+            Assert.assertEquals("int", expr.getSymbolData().getName());
+
+            type = (ClassOrInterfaceDeclaration) cu.getTypes().get(0).getMembers().get(0);
+            md = (MethodDeclaration) type.getMembers().get(0);
+            Assert.assertNotNull(md.getUsages());
+            Assert.assertNull(SymbolType.rawTypeOf(String.class).getMethod());
+        }
+    }
+
     @Test
     public void testMethodOrderingWithLongsAndWrappers() throws Exception {
         String code = "public class A {void foo(long i){} void foo(Integer x){} void bar(){foo(1);}}";
@@ -2345,6 +2409,36 @@ public class SymbolVisitorAdapterTest extends SymbolVisitorAdapterTestSupport {
         Assert.assertEquals(3, mce.getSymbolData().getMethod().getParameterTypes().length);
     }
 
+    @Test
+    public void testSubclassMethodWinsOverMoreSpecificSuperclassMethod() throws Exception {
+        String code = "public class Sub extends Base { void foo(Object o) {} void bar() { foo(\"x\"); } }";
+        String base = "public class Base { void foo(String s) {} }";
+        CompilationUnit cu = run(code, base);
+        Assert.assertNotNull(cu);
+        MethodDeclaration md = (MethodDeclaration) cu.getTypes().get(0).getMembers().get(1);
+        ExpressionStmt stmt = (ExpressionStmt) md.getBody().getStmts().get(0);
+        MethodCallExpr mce = (MethodCallExpr) stmt.getExpression();
+        Assert.assertEquals("Sub", mce.getSymbolData().getMethod().getDeclaringClass().getName());
+        Assert.assertEquals("java.lang.Object", mce.getSymbolData().getMethod().getParameterTypes()[0].getName());
+    }
+
+    @Test
+    public void testMethodCallsWithVarargsArity() throws Exception {
+        String code = "public class Logger { void log(String format, Object... args) {} void log(int a, int b) {} "
+                + "void bar() { log(\"a\"); log(\"a\", 1); log(\"a\", 1, 2); log(1, 2); } }";
+        CompilationUnit cu = run(code);
+        Assert.assertNotNull(cu);
+        MethodDeclaration md = (MethodDeclaration) cu.getTypes().get(0).getMembers().get(2);
+        List<Statement> stmts = md.getBody().getStmts();
+        for (int i = 0; i < 3; i++) {
+            MethodCallExpr mce = (MethodCallExpr) ((ExpressionStmt) stmts.get(i)).getExpression();
+            Assert.assertTrue(mce.getSymbolData().getMethod().isVarArgs());
+        }
+        MethodCallExpr mce = (MethodCallExpr) ((ExpressionStmt) stmts.get(3)).getExpression();
+        Assert.assertFalse(mce.getSymbolData().getMethod().isVarArgs());
+        Assert.assertEquals("int", mce.getSymbolData().getMethod().getParameterTypes()[0].getName());
+    }
+
     @Test
     public void testTernaryOperators() throws Exception {
         String code =
@@ -2679,4 +2773,81 @@ public class SymbolVisitorAdapterTest extends SymbolVisitorAdapterTestSupport {
         Assert.assertEquals(1, cu.getImports().get(1).getUsages().size());
         Assert.assertEquals(1, cu.getImports().get(2).getUsages().size());
     }
+
+    @Test
+    public void testAnalyzesTwoClasspathsConcurrently() throws Exception {
+        File dir = new File(SOURCES_DIR, "concurrent");
+        String[] libs = {"package lib; public class Lib { public static int first() { return 1; } }",
+                "package lib; public class Lib { public static String second() { return null; } }"};
+        String[] clients = {"package client; import lib.Lib; public class Client { int value = Lib.first(); }",
+                "package client; import lib.Lib; public class Client { String value = Lib.second(); }"};
+        final AnalysisContext[] contexts = new AnalysisContext[libs.length];
+        final CompilationUnit[] units = new CompilationUnit[libs.length];
+        for (int i = 0; i < libs.length; i++) {
+            File classes = new File(dir, "classes" + i);
+            new Compiler().compile(classes, new File(dir, "sources" + i), libs[i]);
+            contexts[i] = new AnalysisContext(new URLClassLoader(new URL[] {classes.toURI().toURL()}));
+            units[i] = ASTManager.parse(clients[i]);
+        }
+        AnalysisContext defaultContext = AnalysisContext.getDefault();
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final Throwable[] errors = new Throwable[libs.length];
+        Thread[] threads = new Thread[libs.length];
+        for (int i = 0; i < libs.length; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        SymbolVisitorAdapter<HashMap<String, Object>> visitor =
+                                new SymbolVisitorAdapter<HashMap<String, Object>>();
+                        visitor.setAnalysisContext(contexts[index]);
+                        visitor.visit(units[index], new HashMap<String, Object>());
+                    } catch (Throwable e) {
+                        errors[index] = e;
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (Throwable error : errors) {
+            Assert.assertNull(error);
+        }
+        Assert.assertSame(defaultContext, AnalysisContext.getDefault());
+        FieldDeclaration first = (FieldDeclaration) units[0].getTypes().get(0).getMembers().get(0);
+        FieldDeclaration second = (FieldDeclaration) units[1].getTypes().get(0).getMembers().get(0);
+        Assert.assertEquals("int", first.getVariables().get(0).getInit().getSymbolData().getName());
+        Assert.assertEquals("java.lang.String",
+                second.getVariables().get(0).getInit().getSymbolData().getName());
+    }
+
+    @Test
+    public void testSetClassLoaderOnlyActivatesTheContextOfTheCurrentThread() throws Exception {
+        final ClassLoader classLoader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+        final AnalysisContext defaultContext = AnalysisContext.getDefault();
+        final AnalysisContext[] current = new AnalysisContext[2];
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                new SymbolVisitorAdapter<HashMap<String, Object>>().setClassLoader(classLoader);
+                current[0] = AnalysisContext.getCurrent();
+                new TypesLoaderVisitor<Object>(new SymbolTable(), null, null).setClassLoader(classLoader);
+                current[1] = AnalysisContext.getCurrent();
+            }
+        };
+        thread.start();
+        thread.join();
+
+        Assert.assertSame(AnalysisContext.forClassLoader(classLoader), current[0]);
+        Assert.assertSame(current[0], current[1]);
+        Assert.assertSame(defaultContext, AnalysisContext.getDefault());
+        Assert.assertNotSame(current[0], AnalysisContext.getDefault());
+    }
 }
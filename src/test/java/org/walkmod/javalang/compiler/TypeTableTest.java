@@ -17,12 +17,19 @@ package org.walkmod.javalang.compiler;
 import java.io.File;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.HashMap;
+import java.util.Map;
 
 import junit.framework.Assert;
 
 import org.junit.Test;
 import org.walkmod.javalang.ast.CompilationUnit;
+import org.walkmod.javalang.ast.ImportDeclaration;
+import org.walkmod.javalang.compiler.symbols.ReferenceType;
+import org.walkmod.javalang.compiler.symbols.Scope;
+import org.walkmod.javalang.compiler.symbols.Symbol;
 import org.walkmod.javalang.compiler.symbols.SymbolTable;
+import org.walkmod.javalang.compiler.types.AnalysisContext;
 import org.walkmod.javalang.compiler.types.TypesLoaderVisitor;
 import org.walkmod.javalang.test.SemanticTest;
 
@@ -121,4 +128,65 @@ public class TypeTableTest extends SemanticTest {
         Assert.assertNull(st.findSymbol("C"));
     }
 
+    @Test
+    public void baseTypesAreListedFromTheRootScope() throws Exception {
+        String code = "public class Foo {}";
+
+        CompilationUnit cu = compile(code);
+
+        SymbolTable st = new SymbolTable();
+        st.pushScope();
+        TypesLoaderVisitor<?> ttl = new TypesLoaderVisitor<Object>(st, null, null);
+
+        ttl.clear();
+        ttl.setClassLoader(getClassLoader());
+        cu.accept(ttl, null);
+
+        Assert.assertEquals("int", st.findSymbol("int", ReferenceType.TYPE).getType().getName());
+        Assert.assertEquals("java.lang.String", st.findSymbol("String", ReferenceType.TYPE).getType().getName());
+
+        Map<String, Integer> types = new HashMap<String, Integer>();
+        for (Symbol<?> symbol : st.findSymbolsByType(ReferenceType.TYPE)) {
+            Integer count = types.get(symbol.getName());
+            types.put(symbol.getName(), count == null ? 1 : count + 1);
+        }
+        Assert.assertEquals(Integer.valueOf(1), types.get("int"));
+        Assert.assertEquals(Integer.valueOf(1), types.get("String"));
+        Assert.assertEquals(Integer.valueOf(1), types.get("Integer"));
+        Assert.assertEquals(Integer.valueOf(1), types.get("Foo"));
+    }
+
+    @Test
+    public void packageTypesAreSharedBetweenCompilationUnits() throws Exception {
+        String code = "import org.walkmod.javalang.compiler.symbols.*; public class Foo {}";
+        AnalysisContext context = new AnalysisContext(getClassLoader());
+        SymbolTable[] tables = new SymbolTable[2];
+        AnalysisContext previous = context.activate();
+        try {
+            for (int i = 0; i < tables.length; i++) {
+                CompilationUnit cu = compile(code);
+                tables[i] = new SymbolTable();
+                tables[i].pushScope();
+                TypesLoaderVisitor<?> ttl = new TypesLoaderVisitor<Object>(tables[i], null, null);
+                ttl.setAnalysisContext(context);
+                cu.accept(ttl, null);
+
+                ImportDeclaration imp = cu.getImports().get(0);
+                Assert.assertFalse(tables[i].getScopes().peek().getSymbolsByLocation(imp).isEmpty());
+            }
+        } finally {
+            AnalysisContext.restore(previous);
+        }
+        Scope shared = context.getPackageScope("org.walkmod.javalang.compiler.symbols");
+        Assert.assertNotNull(shared);
+        Assert.assertTrue(tables[0].getScopes().peek().getParents().contains(shared));
+        Assert.assertTrue(tables[1].getScopes().peek().getParents().contains(shared));
+
+        Symbol<?> first = tables[0].findSymbol("Scope", ReferenceType.TYPE);
+        Symbol<?> second = tables[1].findSymbol("Scope", ReferenceType.TYPE);
+        Assert.assertEquals("org.walkmod.javalang.compiler.symbols.Scope", first.getType().getName());
+        Assert.assertNotSame(first, second);
+        Assert.assertTrue(first.getLocation() instanceof ImportDeclaration);
+    }
+
 }
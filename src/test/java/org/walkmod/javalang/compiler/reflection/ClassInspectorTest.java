@@ -24,6 +24,18 @@ public class ClassInspectorTest {
 
     public static abstract class MySet2<E> implements Collection<E>, Set<E> {}
 
+    public interface Top {}
+
+    public interface Left extends Top {}
+
+    public interface Right extends Top {}
+
+    public interface Bottom extends Left, Right {}
+
+    public static class BottomImpl implements Bottom {}
+
+    public static class LeftAndRight implements Left, Right {}
+
     @Test
     public void testIntersectionOfRawTypes() throws Exception {
         assertEquals("[java.util.Set<E>, java.util.Collection<E>]",
@@ -61,6 +73,32 @@ public class ClassInspectorTest {
                 Arrays.<Class<?>>asList(HashSet.class));
     }
 
+    @Test
+    public void testInterfacesAreMoreSpecificThanObject() throws Exception {
+        assertIntersection("[interface java.lang.Runnable]", Runnable.class, Thread.class);
+        assertIntersection("[interface java.lang.Runnable]", "[interface java.lang.Runnable]",
+                Arrays.<Class<?>>asList(Runnable.class, Object.class), Arrays.<Class<?>>asList(Thread.class));
+        assertIntersection("[class java.lang.Object]", Runnable.class, Object.class);
+    }
+
+    @Test
+    public void testIntersectionOfArrays() throws Exception {
+        assertIntersection("[interface java.lang.Cloneable, interface java.io.Serializable]", String[].class,
+                Integer[].class);
+        assertIntersection("[class [Ljava.lang.Object;]", "[class [Ljava.lang.Object;]",
+                Arrays.<Class<?>>asList(Object[].class, Serializable.class),
+                Arrays.<Class<?>>asList(Object[].class));
+    }
+
+    @Test
+    public void testIntersectionOfDiamondInterfaces() throws Exception {
+        assertIntersection("[interface " + Left.class.getName() + ", interface " + Right.class.getName() + "]",
+                BottomImpl.class, LeftAndRight.class);
+        assertIntersection("[interface " + Bottom.class.getName() + "]", BottomImpl.class, Bottom.class);
+        assertIntersection("[interface " + Left.class.getName() + "]", "[interface " + Left.class.getName() + "]",
+                Arrays.<Class<?>>asList(Top.class, Left.class), Arrays.<Class<?>>asList(Bottom.class));
+    }
+
     private static void assertIntersection(String expected, final Class<?> clazz1, final Class<?> clazz2) {
         assertIntersection(expected, expected, clazz1, clazz2);
     }
@@ -0,0 +1,129 @@
+package org.walkmod.javalang.compiler.reflection;
+
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ClassMetadataTest {
+
+    public interface Named {
+        String getName();
+    }
+
+    public static class Base implements Serializable {
+        public void base() {}
+    }
+
+    public static class Child extends Base implements Named {
+        public String getName() {
+            return "child";
+        }
+
+        private void hidden() {}
+    }
+
+    private static List<String> names(Method[] methods) {
+        List<String> result = new ArrayList<String>();
+        for (Method method : methods) {
+            result.add(method.getName());
+        }
+        return result;
+    }
+
+    @Test
+    public void testMetadataIsSharedPerClass() {
+        ClassMetadata metadata = ClassMetadata.of(Child.class);
+
+        assertSame(metadata, ClassMetadata.of(Child.class));
+        assertNotSame(metadata, ClassMetadata.of(Base.class));
+    }
+
+    @Test
+    public void testArraysAreReadOnce() {
+        ClassMetadata metadata = ClassMetadata.of(Child.class);
+
+        assertSame(metadata.getDeclaredMethods(), metadata.getDeclaredMethods());
+        assertSame(metadata.getMethods(), metadata.getMethods());
+        assertSame(metadata.getDeclaredFields(), metadata.getDeclaredFields());
+        assertSame(metadata.getInterfaces(), metadata.getInterfaces());
+        assertSame(metadata.getGenericInterfaces(), metadata.getGenericInterfaces());
+        assertSame(metadata.getTypeParameters(), metadata.getTypeParameters());
+        assertSame(metadata.getSuperClassesAndInterfaces(), metadata.getSuperClassesAndInterfaces());
+    }
+
+    @Test
+    public void testArraysMatchReflection() {
+        ClassMetadata metadata = ClassMetadata.of(Child.class);
+
+        assertEquals(new HashSet<String>(names(Child.class.getDeclaredMethods())),
+                new HashSet<String>(names(metadata.getDeclaredMethods())));
+        assertTrue(names(metadata.getDeclaredMethods()).contains("hidden"));
+        assertEquals(new HashSet<String>(names(Child.class.getMethods())),
+                new HashSet<String>(names(metadata.getMethods())));
+        assertTrue(names(metadata.getMethods()).contains("base"));
+        assertArrayEquals(new Class<?>[] {Named.class}, metadata.getInterfaces());
+        assertEquals(Base.class, metadata.getGenericSuperclass());
+        assertTrue(asList(ClassMetadata.of(ClassMetadataTest.class).getDeclaredClasses()).contains(Child.class));
+    }
+
+    @Test
+    public void testMissingGenericSuperclassIsCached() {
+        ClassMetadata object = ClassMetadata.of(Object.class);
+        ClassMetadata named = ClassMetadata.of(Named.class);
+
+        for (int i = 0; i < 2; i++) {
+            assertNull(object.getGenericSuperclass());
+            assertNull(named.getGenericSuperclass());
+        }
+    }
+
+    @Test
+    public void testSuperClassesAndInterfacesStartWithTheClass() {
+        List<Class<?>> closure = new ArrayList<Class<?>>(ClassMetadata.of(Child.class).getSuperClassesAndInterfaces());
+
+        assertEquals(Arrays.<Class<?>> asList(Child.class, Base.class, Object.class, Serializable.class, Named.class),
+                closure);
+    }
+
+    @Test
+    public void testPrimitivesAndWrappers() {
+        assertEquals(Integer.class, ClassMetadata.of(int.class).getWrapperClass());
+        assertNull(ClassMetadata.of(Integer.class).getWrapperClass());
+        assertTrue(ClassMetadata.of(Integer.class).isWrapper());
+        assertFalse(ClassMetadata.of(int.class).isWrapper());
+        assertTrue(ClassMetadata.of(int.class).getBasicTypeOrder() >= 0);
+        assertTrue(ClassMetadata.of(String.class).getBasicTypeOrder() >= 0);
+        assertEquals(-1, ClassMetadata.of(Child.class).getBasicTypeOrder());
+    }
+
+    @Test
+    public void testMetadataIsKeptPerClassLoader() throws Exception {
+        URL classes = Child.class.getProtectionDomain().getCodeSource().getLocation();
+        URLClassLoader loader = new URLClassLoader(new URL[] {classes}, null);
+        Class<?> other = loader.loadClass(Child.class.getName());
+
+        ClassMetadata metadata = ClassMetadata.of(other);
+
+        assertNotSame(ClassMetadata.of(Child.class), metadata);
+        assertSame(other.getSuperclass(), metadata.getGenericSuperclass());
+        assertNotSame(Base.class, metadata.getGenericSuperclass());
+        assertTrue(metadata.getSuperClassesAndInterfaces().contains(other));
+        assertFalse(metadata.getSuperClassesAndInterfaces().contains(Child.class));
+    }
+}
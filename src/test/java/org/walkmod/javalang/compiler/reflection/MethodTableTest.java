@@ -0,0 +1,152 @@
+package org.walkmod.javalang.compiler.reflection;
+
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class MethodTableTest {
+
+    public interface Greeter extends Serializable {
+        void greet(String name);
+    }
+
+    public static class Base {
+        public void foo(String value) {}
+    }
+
+    public static class Sub extends Base implements Greeter {
+        public void foo(Object value) {}
+
+        public void greet(String name) {}
+
+        public class Inner {}
+    }
+
+    public interface Source<T> {
+        T next();
+    }
+
+    public abstract static class StringSource implements Source<String> {}
+
+    public static class Printer {
+        public void print(Object value) {}
+
+        public void print(String value) {}
+    }
+
+    public static class Logger {
+        public void log(String format, Object... args) {}
+
+        public void log(int first, int second) {}
+
+        public void warn(String message) {}
+    }
+
+    private static MethodTable table(Class<?> clazz) throws Exception {
+        return MethodTable.of(clazz);
+    }
+
+    private static List<String> signatures(Method[] methods) {
+        List<String> result = new ArrayList<String>();
+        for (Method method : methods) {
+            result.add(method.getName() + method.getParameterTypes().length + (method.isVarArgs() ? "..." : ""));
+        }
+        return result;
+    }
+
+    @Test
+    public void testSubclassesAreVisitedBeforeTheirSuperClasses() throws Exception {
+        // the same order as the recursive search: the whole super class before the interfaces, and
+        // the classes that are reached twice are visited twice
+        assertEquals(asList(Sub.class, Base.class, Object.class, MethodTableTest.class, Object.class, Greeter.class,
+                Serializable.class, Object.class, Object.class, MethodTableTest.class, Object.class,
+                MethodTableTest.class, Object.class), table(Sub.class).getLookupOrder());
+        assertEquals(asList(Greeter.class, Serializable.class, Object.class, Object.class, MethodTableTest.class,
+                Object.class), table(Greeter.class).getLookupOrder());
+        assertEquals(3, table(Greeter.class).getCandidates("toString", 0, null).length);
+    }
+
+    @Test
+    public void testSubclassMethodIsFoundBeforeAMoreSpecificSuperclassMethod() throws Exception {
+        Class<?>[] args = new Class<?>[] {String.class};
+
+        Method[] candidates = table(Sub.class).getCandidates("foo", 1, args);
+
+        assertEquals(2, candidates.length);
+        assertEquals(Sub.class, candidates[0].getDeclaringClass());
+        assertEquals(Object.class, candidates[0].getParameterTypes()[0]);
+        assertEquals(Base.class, candidates[1].getDeclaringClass());
+        assertEquals(String.class, table(Base.class).getCandidates("foo", 1, args)[0].getParameterTypes()[0]);
+    }
+
+    @Test
+    public void testMethodsOfGenericInterfacesAreCandidates() throws Exception {
+        MethodTable table = table(StringSource.class);
+
+        assertEquals(asList(StringSource.class, Object.class, Source.class, Object.class, MethodTableTest.class,
+                Object.class, MethodTableTest.class, Object.class), table.getLookupOrder());
+        Method[] candidates = table.getCandidates("next", 0, null);
+        assertEquals(1, candidates.length);
+        assertEquals(Source.class, candidates[0].getDeclaringClass());
+    }
+
+    @Test
+    public void testMethodsOfEnclosingClassesAreCandidates() throws Exception {
+        MethodTable table = table(Sub.Inner.class);
+
+        List<Class<?>> lookupOrder = table.getLookupOrder();
+        assertEquals(asList(Sub.Inner.class, Object.class), lookupOrder.subList(0, 2));
+        assertEquals(table(Sub.class).getLookupOrder(), lookupOrder.subList(2, lookupOrder.size()));
+        Method[] candidates = table.getCandidates("greet", 1, null);
+        assertEquals(2, candidates.length);
+        assertEquals(Sub.class, candidates[0].getDeclaringClass());
+        assertEquals(Greeter.class, candidates[1].getDeclaringClass());
+
+        Serializable anonymous = new Serializable() {};
+        assertEquals(MethodTableTest.class,
+                table(anonymous.getClass()).getCandidates("table", 1, null)[0].getDeclaringClass());
+    }
+
+    @Test
+    public void testOnlyOverloadsWithTheSameNumberOfParametersAreSortedPerCall() throws Exception {
+        MethodTable printer = table(Printer.class);
+        Method[] candidates = printer.getCandidates("print", 1, new Class<?>[] {String.class});
+
+        assertEquals(String.class, candidates[0].getParameterTypes()[0]);
+        assertNotSame(candidates, printer.getCandidates("print", 1, new Class<?>[] {String.class}));
+
+        MethodTable logger = table(Logger.class);
+        assertNotSame(logger.getCandidates("log", 2, null), logger.getCandidates("log", 2, null));
+        assertSame(logger.getCandidates("log", 3, null), logger.getCandidates("log", 3, new Class<?>[] {int.class}));
+        assertSame(logger.getCandidates("warn", 1, null), logger.getCandidates("warn", 1, null));
+    }
+
+    @Test
+    public void testVarargsAcceptEveryArityFromTheFixedParameters() throws Exception {
+        MethodTable table = table(Logger.class);
+
+        assertEquals(asList("log2..."), signatures(table.getCandidates("log", 1, null)));
+        assertEquals(2, table.getCandidates("log", 2, null).length);
+        assertEquals(asList("log2..."), signatures(table.getCandidates("log", 3, null)));
+        assertEquals(0, table.getCandidates("log", 0, null).length);
+        assertEquals(2, table.getCandidates("log", -1, null).length);
+    }
+
+    @Test
+    public void testFixedArityMethodsOnlyAcceptTheirNumberOfParameters() throws Exception {
+        MethodTable table = table(Logger.class);
+
+        assertEquals(asList("warn1"), signatures(table.getCandidates("warn", 1, null)));
+        assertEquals(0, table.getCandidates("warn", 2, null).length);
+        assertEquals(0, table.getCandidates("warn", 0, null).length);
+        assertEquals(0, table.getCandidates("missing", 1, null).length);
+    }
+}
@@ -0,0 +1,118 @@
+package org.walkmod.javalang.compiler.symbols;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.walkmod.javalang.compiler.types.AnalysisContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class CompatibilityCacheTest {
+
+  private static List<Object> key(Object... values) {
+    return new ArrayList<Object>(Arrays.asList(values));
+  }
+
+  @Test
+  public void testHitsAndMisses() {
+    CompatibilityCache cache = new CompatibilityCache(2);
+
+    Assert.assertNull(cache.get(key(String.class, 0)));
+    cache.put(key(String.class, 0), true);
+    Assert.assertEquals(Boolean.TRUE, cache.get(key(String.class, 0)));
+
+    Assert.assertEquals(1, cache.getHits());
+    Assert.assertEquals(1, cache.getMisses());
+  }
+
+  @Test
+  public void testLeastRecentlyUsedKeysAreEvicted() {
+    CompatibilityCache cache = new CompatibilityCache(2);
+    cache.put(key("a"), true);
+    cache.put(key("b"), false);
+    cache.get(key("a"));
+    cache.put(key("c"), true);
+
+    Assert.assertEquals(2, cache.size());
+    Assert.assertNull(cache.get(key("b")));
+    Assert.assertEquals(Boolean.TRUE, cache.get(key("a")));
+    Assert.assertEquals(Boolean.TRUE, cache.get(key("c")));
+  }
+
+  @Test
+  public void testOnlyGenericTypesAreCached() {
+    AnalysisContext context = new AnalysisContext(getClass().getClassLoader());
+    AnalysisContext previous = context.activate();
+    try {
+      CompatibilityCache cache = context.getCompatibilityCache();
+      SymbolType raw = SymbolType.rawTypeOf(String.class);
+      SymbolType list = new SymbolType(List.class);
+      list.setParameterizedTypes(new ArrayList<SymbolType>(Arrays.asList(new SymbolType(String.class))));
+
+      Assert.assertTrue(raw.isCompatible(raw));
+      Assert.assertTrue(SymbolType.rawTypeOf(Object.class).isCompatible(raw));
+      Assert.assertFalse(raw.isCompatible(SymbolType.rawTypeOf(Object.class)));
+      Assert.assertEquals(0, cache.size());
+
+      boolean compatible = list.isCompatible(list.clone());
+      Assert.assertEquals(1, cache.size());
+      Assert.assertEquals(compatible, list.isCompatible(list.clone()));
+      Assert.assertEquals(1, cache.getHits());
+    } finally {
+      AnalysisContext.restore(previous);
+    }
+  }
+
+  @Test
+  public void testImmutableTypesAreCachedByReference() {
+    AnalysisContext context = new AnalysisContext(getClass().getClassLoader());
+    AnalysisContext previous = context.activate();
+    try {
+      CompatibilityCache cache = context.getCompatibilityCache();
+      SymbolType list = new SymbolType(List.class);
+      list.setParameterizedTypes(new ArrayList<SymbolType>(Arrays.asList(new SymbolType(String.class))));
+      SymbolType arrayList = new SymbolType(ArrayList.class);
+      arrayList.setParameterizedTypes(new ArrayList<SymbolType>(Arrays.asList(new SymbolType(String.class))));
+      SymbolType immutableList = list.asImmutable();
+      SymbolType immutableArrayList = arrayList.asImmutable();
+
+      Assert.assertTrue(immutableList.isCompatible(immutableArrayList));
+      Assert.assertTrue(immutableList.isCompatible(immutableArrayList));
+      Assert.assertEquals(1, cache.getHits());
+
+      // equal immutable types that are not the same instance are other keys
+      Assert.assertTrue(list.asImmutable().isCompatible(immutableArrayList));
+      Assert.assertEquals(1, cache.getHits());
+      Assert.assertEquals(2, cache.size());
+    } finally {
+      AnalysisContext.restore(previous);
+    }
+  }
+
+  @Test
+  public void testTheFingerprintDoesNotLoadLazyTypes() {
+    SymbolType lazy = SymbolType.lazyClassOf("org.walkmod.Missing");
+    List<Object> fingerprint = new ArrayList<Object>();
+    lazy.fingerprint(fingerprint);
+
+    List<Object> other = new ArrayList<Object>();
+    SymbolType.lazyClassOf("org.walkmod.Missing").fingerprint(other);
+    Assert.assertEquals(fingerprint, other);
+  }
+
+  @Test
+  public void testFrozenTypesKeepTheirFingerprint() {
+    SymbolType list = new SymbolType(List.class);
+    list.setParameterizedTypes(new ArrayList<SymbolType>(Arrays.asList(new SymbolType(String.class))));
+    List<Object> expected = new ArrayList<Object>();
+    list.fingerprint(expected);
+
+    SymbolType immutable = list.asImmutable();
+    for (int i = 0; i < 2; i++) {
+      List<Object> fingerprint = new ArrayList<Object>();
+      immutable.fingerprint(fingerprint);
+      Assert.assertEquals(expected, fingerprint);
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package org.walkmod.javalang.compiler.symbols;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+public class ScopeSymbolsTest {
+
+  @Test
+  public void testEmpty() {
+    ScopeSymbols symbols = new ScopeSymbols();
+
+    Assert.assertNull(symbols.get("a"));
+    Assert.assertTrue(symbols.values().isEmpty());
+  }
+
+  @Test
+  public void testInlineNames() {
+    ScopeSymbols symbols = new ScopeSymbols();
+    ArrayList<Symbol<?>> a = new ArrayList<Symbol<?>>();
+    ArrayList<Symbol<?>> b = new ArrayList<Symbol<?>>();
+    symbols.put("a", a);
+    symbols.put("b", b);
+
+    Assert.assertSame(a, symbols.get("a"));
+    Assert.assertSame(b, symbols.get(new String("b")));
+    Assert.assertNull(symbols.get("c"));
+    Assert.assertEquals(2, symbols.values().size());
+  }
+
+  @Test
+  public void testPromotionToMap() {
+    ScopeSymbols symbols = new ScopeSymbols();
+    int count = ScopeSymbols.MAX_INLINE_NAMES * 2;
+    for (int i = 0; i < count; i++) {
+      symbols.put("name" + i, new ArrayList<Symbol<?>>());
+    }
+
+    Assert.assertEquals(count, symbols.values().size());
+    for (int i = 0; i < count; i++) {
+      Assert.assertNotNull(symbols.get("name" + i));
+    }
+    Assert.assertNull(symbols.get("name" + count));
+  }
+}
@@ -0,0 +1,195 @@
+package org.walkmod.javalang.compiler.symbols;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.walkmod.javalang.ast.ImportDeclaration;
+import org.walkmod.javalang.ast.body.ClassOrInterfaceDeclaration;
+import org.walkmod.javalang.ast.expr.NameExpr;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class ScopeTest {
+
+  public static class Overloads {
+
+    public void m(Comparable<?> c) {}
+
+    public void m(Runnable r) {}
+  }
+
+  private static SymbolType boundedObject(Class<?> bound) {
+    return new SymbolType("java.lang.Object", Arrays.asList(new SymbolType(bound)));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testOverloadsOfArgumentsThatOnlyDifferInTheirBounds() {
+    Scope scope = new Scope();
+    for (Method method : Overloads.class.getDeclaredMethods()) {
+      scope.addSymbol(new MethodSymbol("m", new SymbolType(void.class), null, false, false, method));
+    }
+
+    Symbol<?> comparable = scope.findSymbol("m", null, new SymbolType[] {boundedObject(Comparable.class)}, null,
+        ReferenceType.METHOD);
+    Symbol<?> runnable = scope.findSymbol("m", null, new SymbolType[] {boundedObject(Runnable.class)}, null,
+        ReferenceType.METHOD);
+
+    Assert.assertEquals(Comparable.class,
+        ((MethodSymbol) comparable).getReferencedMethod().getParameterTypes()[0]);
+    Assert.assertEquals(Runnable.class, ((MethodSymbol) runnable).getReferencedMethod().getParameterTypes()[0]);
+  }
+
+  @Test
+  public void testSymbolsAreIndexedByTheirNewLocation() {
+    ClassOrInterfaceDeclaration first = new ClassOrInterfaceDeclaration();
+    ClassOrInterfaceDeclaration second = new ClassOrInterfaceDeclaration();
+    Scope scope = new Scope();
+    Symbol<ClassOrInterfaceDeclaration> symbol =
+        new Symbol<ClassOrInterfaceDeclaration>("A", new SymbolType("A"), first, ReferenceType.TYPE);
+    scope.addSymbol(symbol);
+    Assert.assertEquals(1, scope.getSymbolsByLocation(first).size());
+
+    symbol.setLocation(second);
+
+    Assert.assertTrue(scope.getSymbolsByLocation(first).isEmpty());
+    Assert.assertSame(symbol, scope.getSymbolsByLocation(second).get(0));
+  }
+
+  @Test
+  public void testFrozenOwnersKeepTheLocationOfTheirSymbols() {
+    ClassOrInterfaceDeclaration first = new ClassOrInterfaceDeclaration();
+    ClassOrInterfaceDeclaration second = new ClassOrInterfaceDeclaration();
+    Symbol<ClassOrInterfaceDeclaration> symbol =
+        new Symbol<ClassOrInterfaceDeclaration>("A", new SymbolType("A"), first, ReferenceType.TYPE);
+    Scope shared = new Scope();
+    shared.addSharedSymbol(symbol, 0);
+    shared.freeze();
+    Scope scope = new Scope();
+    scope.addSymbol(symbol);
+    Assert.assertEquals(1, scope.getSymbolsByLocation(first).size());
+
+    symbol.setLocation(second);
+
+    Assert.assertTrue(scope.getSymbolsByLocation(first).isEmpty());
+    Assert.assertSame(symbol, scope.getSymbolsByLocation(second).get(0));
+    Assert.assertSame(symbol, shared.getSymbolsByLocation(first).get(0));
+  }
+
+  private static Scope typeScope(String typeParam, String bound) {
+    Scope scope = new Scope();
+    scope.addSymbol(new Symbol<ClassOrInterfaceDeclaration>(typeParam, new SymbolType(bound), null,
+        ReferenceType.TYPE_PARAM));
+    return scope;
+  }
+
+  private static Symbol<ClassOrInterfaceDeclaration> superSymbol(Scope superScope) {
+    Symbol<ClassOrInterfaceDeclaration> symbol =
+        new Symbol<ClassOrInterfaceDeclaration>("super", new SymbolType("Super"), null, ReferenceType.VARIABLE);
+    symbol.setInnerScope(superScope);
+    return symbol;
+  }
+
+  @Test
+  public void testTypeParamsFollowTheReplacedSuperScope() {
+    Scope scope = new Scope();
+    Symbol<ClassOrInterfaceDeclaration> superSymbol = superSymbol(typeScope("T", "java.lang.String"));
+    scope.addSymbol(superSymbol);
+    Assert.assertEquals("java.lang.String", scope.getTypeParams().get("T").getName());
+
+    // the list of super symbols keeps its size
+    Symbol<ClassOrInterfaceDeclaration> replacement = superSymbol(typeScope("T", "java.lang.Integer"));
+    scope.chageSymbol(superSymbol, replacement);
+    Assert.assertEquals("java.lang.Integer", scope.getTypeParams().get("T").getName());
+
+    replacement.setInnerScope(typeScope("T", "java.lang.Long"));
+    Assert.assertEquals("java.lang.Long", scope.getTypeParams().get("T").getName());
+  }
+
+  @Test
+  public void testTypeParamsOfTheSuperScopeAreNotCachedBeforeTheyAreDeclared() {
+    Scope superScope = typeScope("T", "java.lang.String");
+    Scope scope = new Scope();
+    scope.addSymbol(superSymbol(superScope));
+    Map<String, SymbolType> typeParams = scope.getTypeParams();
+    Assert.assertSame(typeParams, scope.getTypeParams());
+
+    superScope.addSymbol(new Symbol<ClassOrInterfaceDeclaration>("E", new SymbolType("java.lang.Integer"), null,
+        ReferenceType.TYPE_PARAM));
+
+    Assert.assertEquals("java.lang.Integer", scope.getTypeParams().get("E").getName());
+    Assert.assertEquals("java.lang.String", scope.getTypeParams().get("T").getName());
+  }
+
+  private static class EventRecorder extends SymbolAction {
+
+    private final List<String> events = new ArrayList<String>();
+
+    @Override
+    public void doPush(Symbol<?> symbol, SymbolTable table) {
+      events.add("push " + symbol.getType().getName());
+    }
+
+    @Override
+    public void doPop(Symbol<?> symbol, SymbolTable table) {
+      events.add("pop " + symbol.getType().getName());
+    }
+  }
+
+  private static Scope packageScope(String packageName, String... names) {
+    Scope scope = new Scope();
+    for (String name : names) {
+      scope.addSharedSymbol(new Symbol<ClassOrInterfaceDeclaration>(name, new SymbolType(packageName + "." + name),
+          null, ReferenceType.TYPE), 0);
+    }
+    scope.freeze();
+    return scope;
+  }
+
+  @Test
+  public void testImportedSymbolsAreOnlyCopiedAndPushedWhenTheyAreLookedUp() {
+    Scope shared = packageScope("p", "A", "B");
+    ImportDeclaration asterisk = new ImportDeclaration(new NameExpr("p"), false, true);
+    EventRecorder recorder = new EventRecorder();
+    SymbolTable table = new SymbolTable();
+    table.pushScope();
+    Scope root = table.getScopes().peek();
+    root.addParent(shared, Arrays.<SymbolAction>asList(recorder), asterisk, false, false);
+
+    List<Symbol<?>> listed = root.getSymbolsByLocation(asterisk);
+    Assert.assertEquals(2, listed.size());
+    Assert.assertTrue(listed.contains(shared.findSymbol("A", ReferenceType.TYPE)));
+    Assert.assertEquals(2, root.getSymbols().size());
+    Assert.assertTrue(recorder.events.isEmpty());
+
+    Symbol<?> symbol = table.findSymbol("A", ReferenceType.TYPE);
+    Assert.assertSame(asterisk, symbol.getLocation());
+    Assert.assertNotSame(shared.findSymbol("A", ReferenceType.TYPE), symbol);
+    Assert.assertSame(symbol, table.findSymbol("A", ReferenceType.TYPE));
+    Assert.assertEquals(Arrays.asList("push p.A"), recorder.events);
+
+    table.popScope();
+    Assert.assertEquals(Arrays.asList("push p.A", "pop p.A"), recorder.events);
+  }
+
+  @Test
+  public void testSingleTypeImportsHidePackageImportsWhenTheyAreListed() {
+    Scope asteriskScope = packageScope("p", "A", "B");
+    Scope singleScope = packageScope("q", "A");
+    Scope root = new Scope();
+    root.addParent(asteriskScope, null, new ImportDeclaration(new NameExpr("p"), false, true), false, false);
+    root.addParent(singleScope, null, new ImportDeclaration(new NameExpr("q.A"), false, false), true, false);
+
+    List<String> listed = new ArrayList<String>();
+    for (Symbol<?> symbol : root.getSymbolsByType(ReferenceType.TYPE)) {
+      listed.add(symbol.getType().getName());
+    }
+    Assert.assertEquals(2, listed.size());
+    Assert.assertTrue(listed.contains("q.A"));
+    Assert.assertTrue(listed.contains("p.B"));
+    Assert.assertEquals("q.A", root.findSymbol("A", ReferenceType.TYPE).getType().getName());
+  }
+}
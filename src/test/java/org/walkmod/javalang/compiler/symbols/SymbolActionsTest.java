@@ -0,0 +1,59 @@
+package org.walkmod.javalang.compiler.symbols;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.walkmod.javalang.ast.body.ClassOrInterfaceDeclaration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class SymbolActionsTest {
+
+  public static class PushCounter extends SymbolAction {
+
+    int pushes = 0;
+
+    @Override
+    public void doPush(Symbol<?> symbol, SymbolTable table) throws Exception {
+      pushes++;
+    }
+  }
+
+  public static class PopCounter extends SymbolAction {
+
+    int pops = 0;
+
+    @Override
+    public void doPop(Symbol<?> symbol, SymbolTable table) throws Exception {
+      pops++;
+    }
+  }
+
+  private static Symbol<?> symbol() {
+    return new Symbol<ClassOrInterfaceDeclaration>("a", new SymbolType("int"), null);
+  }
+
+  @Test
+  public void testAppendedActionsReceiveTheEvents() throws Exception {
+    PushCounter first = new PushCounter();
+    PushCounter second = new PushCounter();
+    PopCounter pop = new PopCounter();
+    List<SymbolAction> actions = new ArrayList<SymbolAction>();
+    actions.add(first);
+    SymbolActions subscribers = new SymbolActions(actions);
+    Symbol<?> symbol = symbol();
+
+    subscribers.invoke(symbol, null, SymbolEvent.PUSH, null);
+    actions.add(second);
+    subscribers.invoke(symbol, null, SymbolEvent.PUSH, null);
+    // like Scope.addActions, that appends to a list shared with other scopes
+    actions.addAll(Arrays.<SymbolAction>asList(pop));
+    subscribers.invoke(symbol, null, SymbolEvent.PUSH, null);
+    subscribers.invoke(symbol, null, SymbolEvent.POP, null);
+
+    Assert.assertEquals(3, first.pushes);
+    Assert.assertEquals(2, second.pushes);
+    Assert.assertEquals(1, pop.pops);
+  }
+}
@@ -0,0 +1,252 @@
+package org.walkmod.javalang.compiler.symbols;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.walkmod.javalang.compiler.types.AnalysisContext;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SymbolTypeTest {
+
+  public static class Generic<T> {
+
+    public List<Map<String, T>> values;
+  }
+
+  public static class Plain {}
+
+  private AnalysisContext previous;
+
+  @Before
+  public void setUp() {
+    previous = new AnalysisContext(getClass().getClassLoader()).activate();
+  }
+
+  @After
+  public void tearDown() {
+    AnalysisContext.restore(previous);
+  }
+
+  private static Type valuesType() throws NoSuchFieldException {
+    return Generic.class.getField("values").getGenericType();
+  }
+
+  private static List<Object> fingerprint(SymbolType type) {
+    List<Object> key = new ArrayList<Object>();
+    type.fingerprint(key);
+    return key;
+  }
+
+  @Test
+  public void testCachedConversionsEqualTheFirstOne() throws Exception {
+    Map<String, SymbolType> mapping = new HashMap<String, SymbolType>();
+    mapping.put("T", new SymbolType(Integer.class));
+
+    SymbolType miss = SymbolType.valueOf(valuesType(), mapping);
+    SymbolType hit = SymbolType.valueOf(valuesType(), mapping);
+
+    Assert.assertNotSame(miss, hit);
+    Assert.assertEquals(miss.toString(), hit.toString());
+    Assert.assertEquals(fingerprint(miss), fingerprint(hit));
+    Assert.assertFalse(miss.isFrozen());
+    Assert.assertFalse(hit.isFrozen());
+    Assert.assertNotSame(mapping.get("T"), miss.getParameterizedTypes().get(0).getParameterizedTypes().get(1));
+
+    miss.setArrayCount(1);
+    Assert.assertEquals(0, hit.getArrayCount());
+    Assert.assertEquals(0, SymbolType.valueOf(valuesType(), mapping).getArrayCount());
+  }
+
+  @Test
+  public void testImmutableConversionsAreShared() throws Exception {
+    Map<String, SymbolType> mapping = new HashMap<String, SymbolType>();
+    mapping.put("T", new SymbolType(Integer.class));
+
+    SymbolType shared = SymbolType.immutableValueOf(valuesType(), mapping);
+
+    Assert.assertTrue(shared.isFrozen());
+    Assert.assertSame(shared, SymbolType.immutableValueOf(valuesType(), mapping));
+    Assert.assertEquals(fingerprint(shared), fingerprint(SymbolType.valueOf(valuesType(), mapping)));
+  }
+
+  /** Map&lt;String, List&lt;T&gt;&gt; */
+  private static SymbolType mapOfLists() {
+    SymbolType list = new SymbolType(List.class);
+    list.setParameterizedTypes(new ArrayList<SymbolType>(Arrays.asList(SymbolType.typeVariableOf("T", Object.class))));
+    SymbolType map = new SymbolType(Map.class);
+    map.setParameterizedTypes(new ArrayList<SymbolType>(Arrays.asList(new SymbolType(String.class), list)));
+    return map;
+  }
+
+  @Test
+  public void testRefactoringAnImmutableTypeCopiesThePathToTheVariable() {
+    SymbolType immutable = mapOfLists().asImmutable();
+
+    SymbolType refactored = immutable.refactor("T", new SymbolType(Integer.class), true);
+
+    Assert.assertNotSame(immutable, refactored);
+    Assert.assertTrue(refactored.isFrozen());
+    Assert.assertSame(immutable.getParameterizedTypes().get(0), refactored.getParameterizedTypes().get(0));
+    SymbolType list = refactored.getParameterizedTypes().get(1);
+    Assert.assertNotSame(immutable.getParameterizedTypes().get(1), list);
+    Assert.assertEquals(Integer.class, list.getParameterizedTypes().get(0).getClazz());
+    Assert.assertEquals("T", immutable.getParameterizedTypes().get(1).getParameterizedTypes().get(0)
+        .getTemplateVariable());
+  }
+
+  @Test
+  public void testRefactoringAnImmutableTypeWithoutTheVariableReturnsTheSameType() {
+    SymbolType immutable = mapOfLists().asImmutable();
+
+    Map<String, SymbolType> mapping = new HashMap<String, SymbolType>();
+    mapping.put("U", new SymbolType(Integer.class));
+
+    Assert.assertSame(immutable, immutable.refactor("U", new SymbolType(Integer.class), true));
+    Assert.assertSame(immutable, immutable.refactor(mapping));
+    Assert.assertSame(immutable, immutable.withArrayCount(0));
+    Assert.assertSame(immutable, immutable.cloneIfMutable());
+  }
+
+  @Test
+  public void testLazyClassesEqualTheLoadedOnes() {
+    SymbolType loaded = new SymbolType(Map.Entry.class);
+    SymbolType lazy = SymbolType.lazyClassOf(Map.Entry.class.getName());
+
+    Assert.assertEquals(loaded.toString(), lazy.toString());
+    Assert.assertEquals(fingerprint(loaded), fingerprint(lazy));
+    Assert.assertEquals(Map.Entry.class, lazy.getClazz());
+    Assert.assertEquals(2, lazy.getParameterizedTypes().size());
+    Assert.assertNull(SymbolType.lazyClassOf(String.class.getName()).getParameterizedTypes());
+  }
+
+  @Test
+  public void testClonesOfLazyClassesKeepTheirTypeParameters() {
+    SymbolType loaded = new SymbolType(Map.Entry.class);
+    SymbolType lazy = SymbolType.lazyClassOf(Map.Entry.class.getName());
+
+    SymbolType clone = lazy.clone();
+
+    Assert.assertNotSame(lazy, clone);
+    Assert.assertEquals(loaded.toString(), clone.toString());
+    Assert.assertEquals(loaded.toString(), lazy.toString());
+    Assert.assertNotSame(lazy.getParameterizedTypes(), clone.getParameterizedTypes());
+  }
+
+  @Test
+  public void testSettingTheTypeParametersOfALazyClassReplacesThePendingOnes() {
+    SymbolType lazy = SymbolType.lazyClassOf(List.class.getName());
+    lazy.setParameterizedTypes(new ArrayList<SymbolType>(Arrays.asList(new SymbolType(String.class))));
+
+    Assert.assertEquals(1, lazy.getParameterizedTypes().size());
+    Assert.assertEquals(String.class, lazy.getParameterizedTypes().get(0).getClazz());
+    Assert.assertEquals(String.class, lazy.clone().getParameterizedTypes().get(0).getClazz());
+  }
+
+  @Test
+  public void testTheReturnTypeOfAMethodDoesNotModifyTheTypeMapping() throws Exception {
+    Method get = List.class.getMethod("get", int.class);
+    SymbolType immutable = SymbolType.rawTypeOf(String.class);
+    Map<String, SymbolType> mapping = new HashMap<String, SymbolType>();
+    mapping.put("E", immutable);
+
+    SymbolType result = SymbolType.valueOf(get, mapping);
+    Assert.assertEquals(get, result.getMethod());
+    Assert.assertEquals("java.lang.String", result.getName());
+    Assert.assertNull(immutable.getMethod());
+
+    SymbolType mutable = new SymbolType(String.class);
+    mapping.put("E", mutable);
+    result = SymbolType.valueOf(get, mapping);
+    Assert.assertNotSame(mutable, result);
+    Assert.assertEquals(get, result.getMethod());
+    Assert.assertNull(mutable.getMethod());
+    Assert.assertSame(mutable, mapping.get("E"));
+  }
+
+  @Test
+  public void testRawTypesAreSharedAndFrozen() {
+    SymbolType raw = SymbolType.rawTypeOf(String.class);
+
+    Assert.assertSame(raw, SymbolType.rawTypeOf(String.class));
+    Assert.assertTrue(raw.isFrozen());
+    Assert.assertEquals(String.class, raw.getClazz());
+    Assert.assertEquals(new SymbolType(String.class), raw);
+    try {
+      raw.setArrayCount(1);
+      Assert.fail("A shared type can not be modified");
+    } catch (UnsupportedOperationException e) {
+    }
+    Assert.assertEquals(0, raw.getArrayCount());
+
+    SymbolType clone = raw.clone();
+    Assert.assertFalse(clone.isFrozen());
+    clone.setArrayCount(1);
+    Assert.assertEquals(1, clone.getArrayCount());
+    Assert.assertEquals(0, SymbolType.rawTypeOf(String.class).getArrayCount());
+  }
+
+  @Test
+  public void testRawTypesOfGenericClassesAreNotShared() {
+    SymbolType list = SymbolType.rawTypeOf(List.class);
+
+    Assert.assertNotSame(list, SymbolType.rawTypeOf(List.class));
+    Assert.assertFalse(list.isFrozen());
+    Assert.assertEquals(new SymbolType(List.class).toString(), list.toString());
+  }
+
+  @Test
+  public void testRawTypesOfArraysAreRepresentedByTheirElementClass() throws Exception {
+    SymbolType matrix = SymbolType.rawTypeOf(String[][].class);
+
+    Assert.assertSame(matrix, SymbolType.rawTypeOf(String[][].class));
+    Assert.assertTrue(matrix.isFrozen());
+    Assert.assertEquals("java.lang.String", matrix.getName());
+    Assert.assertEquals(2, matrix.getArrayCount());
+    Assert.assertEquals(String.class, matrix.getClazz());
+    Assert.assertEquals(SymbolType.valueOf(String[][].class, new HashMap<String, SymbolType>()), matrix);
+    Assert.assertNotSame(matrix, SymbolType.rawTypeOf(String[].class));
+    Assert.assertEquals(1, SymbolType.rawTypeOf(String[].class).getArrayCount());
+    Assert.assertEquals(0, SymbolType.rawTypeOf(String.class).getArrayCount());
+
+    SymbolType ints = SymbolType.rawTypeOf(int[].class);
+    Assert.assertEquals("int", ints.getName());
+    Assert.assertEquals(1, ints.getArrayCount());
+  }
+
+  @Test
+  public void testRawTypesOfArraysOfGenericClassesAreNotShared() {
+    SymbolType lists = SymbolType.rawTypeOf(List[].class);
+
+    Assert.assertNotSame(lists, SymbolType.rawTypeOf(List[].class));
+    Assert.assertFalse(lists.isFrozen());
+    Assert.assertEquals("java.util.List", lists.getName());
+    Assert.assertEquals(1, lists.getArrayCount());
+    Assert.assertEquals(SymbolType.rawTypeOf(List.class).getParameterizedTypes(), lists.getParameterizedTypes());
+  }
+
+  @Test
+  public void testRawTypesAreKeptPerClassLoader() throws Exception {
+    URL classes = Plain.class.getProtectionDomain().getCodeSource().getLocation();
+    URLClassLoader loader = new URLClassLoader(new URL[] {classes}, null);
+    Class<?> other = loader.loadClass(Plain.class.getName());
+    Assert.assertNotSame(Plain.class, other);
+
+    SymbolType raw = SymbolType.rawTypeOf(Plain.class);
+    SymbolType otherRaw = SymbolType.rawTypeOf(other);
+
+    Assert.assertNotSame(raw, otherRaw);
+    Assert.assertEquals(Plain.class, raw.getClazz());
+    Assert.assertEquals(other, otherRaw.getClazz());
+    Assert.assertSame(otherRaw, SymbolType.rawTypeOf(other));
+  }
+}
@@ -0,0 +1,89 @@
+package org.walkmod.javalang.compiler.types;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+public class CachedClassLoaderTest {
+
+  public static class Appearing {}
+
+  private File dir;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = File.createTempFile("classes", "");
+    dir.delete();
+    dir.mkdirs();
+  }
+
+  @After
+  public void tearDown() {
+    delete(dir);
+  }
+
+  private static void delete(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+
+  private void copyClassFile(Class<?> clazz) throws IOException {
+    String path = clazz.getName().replace('.', '/') + ".class";
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    InputStream in = clazz.getClassLoader().getResourceAsStream(path);
+    try {
+      byte[] chunk = new byte[4096];
+      int read;
+      while ((read = in.read(chunk)) > 0) {
+        bytes.write(chunk, 0, read);
+      }
+    } finally {
+      in.close();
+    }
+    File file = new File(dir, path.replace('/', File.separatorChar));
+    file.getParentFile().mkdirs();
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(bytes.toByteArray());
+    } finally {
+      out.close();
+    }
+  }
+
+  @Test
+  public void testMissingClassIsFoundAfterItAppears() throws Exception {
+    String name = Appearing.class.getName();
+    CachedClassLoader loader =
+        new CachedClassLoader(new IndexedURLClassLoader(new URL[] {dir.toURI().toURL()}, null, null));
+    try {
+      loader.loadClass(name);
+      Assert.fail("The class does not exist yet");
+    } catch (ClassNotFoundException e) {
+    }
+    Assert.assertFalse(loader.isLoadable(name));
+
+    copyClassFile(Appearing.class);
+    // the name is still cached as missing until the classpath is refreshed
+    Assert.assertFalse(loader.isLoadable(name));
+    loader.refresh();
+
+    Assert.assertTrue(loader.isLoadable(name));
+    Class<?> clazz = loader.loadClass(name);
+    Assert.assertEquals(name, clazz.getName());
+    Assert.assertNotSame(Appearing.class, clazz);
+    Assert.assertSame(clazz, loader.loadClass(name));
+  }
+}
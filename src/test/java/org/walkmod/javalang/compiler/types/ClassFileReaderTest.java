@@ -0,0 +1,153 @@
+package org.walkmod.javalang.compiler.types;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.walkmod.javalang.compiler.types.ClassDescriptor.InnerClassEntry;
+import org.walkmod.javalang.compiler.types.ClassDescriptor.MemberDescriptor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.List;
+
+public class ClassFileReaderTest {
+
+  public static class Generic<T extends Comparable<T>> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected List<T> values;
+
+    public <E> E first(List<E> list) {
+      return list.get(0);
+    }
+  }
+
+  private Object anonymous = createAnonymous();
+
+  private Object local = createLocal();
+
+  private Object createAnonymous() {
+    return new Object() {};
+  }
+
+  private Object createLocal() {
+    class Local {}
+    return new Local();
+  }
+
+  private static ClassDescriptor read(Class<?> clazz) throws IOException {
+    InputStream in = clazz.getResourceAsStream("/" + clazz.getName().replace('.', '/') + ".class");
+    Assert.assertNotNull(in);
+    try {
+      return new ClassFileReader(in).read();
+    } finally {
+      in.close();
+    }
+  }
+
+  private static MemberDescriptor getMember(List<MemberDescriptor> members, String name) {
+    for (MemberDescriptor member : members) {
+      if (member.getName().equals(name)) {
+        return member;
+      }
+    }
+    return null;
+  }
+
+  @Test
+  public void testHierarchy() throws IOException {
+    ClassDescriptor descriptor = read(Generic.class);
+
+    Assert.assertEquals(Generic.class.getName(), descriptor.getName());
+    Assert.assertEquals("java.lang.Object", descriptor.getSuperName());
+    Assert.assertEquals(1, descriptor.getInterfaceNames().size());
+    Assert.assertEquals("java.io.Serializable", descriptor.getInterfaceNames().get(0));
+    Assert.assertEquals(getClass().getPackage().getName(), descriptor.getPackageName());
+  }
+
+  @Test
+  public void testSignature() throws IOException {
+    ClassDescriptor descriptor = read(Generic.class);
+
+    Assert.assertEquals("<T::Ljava/lang/Comparable<TT;>;>Ljava/lang/Object;Ljava/io/Serializable;",
+        descriptor.getSignature());
+    MemberDescriptor field = getMember(descriptor.getFields(), "values");
+    Assert.assertEquals("Ljava/util/List;", field.getDescriptor());
+    Assert.assertEquals("Ljava/util/List<TT;>;", field.getSignature());
+    MemberDescriptor method = getMember(descriptor.getMethods(), "first");
+    Assert.assertEquals("(Ljava/util/List;)Ljava/lang/Object;", method.getDescriptor());
+    Assert.assertEquals("<E:Ljava/lang/Object;>(Ljava/util/List<TE;>;)TE;", method.getSignature());
+
+    Assert.assertNull(getMember(descriptor.getFields(), "serialVersionUID").getSignature());
+    Assert.assertNull(read(getClass()).getSignature());
+  }
+
+  @Test
+  public void testInnerClasses() throws IOException {
+    ClassDescriptor descriptor = read(Generic.class);
+
+    Assert.assertTrue(descriptor.isMemberClass());
+    Assert.assertFalse(descriptor.isLocalClass());
+    Assert.assertFalse(descriptor.isAnonymousClass());
+    Assert.assertEquals(getClass().getName(), descriptor.getDeclaringClassName());
+    Assert.assertEquals("Generic", descriptor.getSimpleName());
+    Assert.assertEquals(Generic.class.getModifiers(), descriptor.getModifiers());
+
+    boolean found = false;
+    for (InnerClassEntry entry : read(getClass()).getDeclaredClasses()) {
+      Assert.assertEquals(getClass().getName(), entry.getOuterName());
+      found = found || entry.getName().equals(Generic.class.getName());
+    }
+    Assert.assertTrue(found);
+  }
+
+  @Test
+  public void testEnclosingMethodOfAnonymousClass() throws IOException {
+    ClassDescriptor descriptor = read(anonymous.getClass());
+
+    Assert.assertTrue(descriptor.isAnonymousClass());
+    Assert.assertFalse(descriptor.isMemberClass());
+    Assert.assertNull(descriptor.getDeclaringClassName());
+    Assert.assertEquals("", descriptor.getSimpleName());
+    Assert.assertEquals(getClass().getName(), descriptor.getEnclosingClassName());
+    Assert.assertEquals("createAnonymous", descriptor.getEnclosingMethodName());
+  }
+
+  @Test
+  public void testEnclosingMethodOfLocalClass() throws IOException {
+    ClassDescriptor descriptor = read(local.getClass());
+
+    Assert.assertTrue(descriptor.isLocalClass());
+    Assert.assertFalse(descriptor.isMemberClass());
+    Assert.assertEquals("Local", descriptor.getSimpleName());
+    Assert.assertEquals(getClass().getName(), descriptor.getEnclosingClassName());
+    Assert.assertEquals("createLocal", descriptor.getEnclosingMethodName());
+  }
+
+  @Test
+  public void testEnclosingClassOfMemberClassWithoutMethod() throws IOException {
+    ClassDescriptor descriptor = read(Generic.class);
+
+    Assert.assertNull(descriptor.getEnclosingClassName());
+    Assert.assertNull(descriptor.getEnclosingMethodName());
+  }
+
+  @Test(expected = IOException.class)
+  public void testInvalidClassFile() throws IOException {
+    new ClassFileReader(new java.io.ByteArrayInputStream(new byte[] {1, 2, 3, 4})).read();
+  }
+
+  @Test
+  public void testProviderCachesMissingClassesWithinCapacity() {
+    BytecodeTypeMetadataProvider provider = new BytecodeTypeMetadataProvider(getClass().getClassLoader(), 2);
+
+    Assert.assertNull(provider.getClassDescriptor("org.foo.Missing"));
+    Assert.assertEquals(Generic.class.getName(),
+        provider.getClassDescriptor(Generic.class.getName()).getName());
+    Assert.assertNotNull(provider.getClassDescriptor(getClass().getName()));
+    Assert.assertEquals(2, provider.size());
+    Assert.assertNull(provider.getClassDescriptor("org.foo.Missing"));
+    Assert.assertEquals(2, provider.size());
+  }
+}
@@ -0,0 +1,49 @@
+package org.walkmod.javalang.compiler.types;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ClassNameFilterTest {
+
+  private static String className(int i) {
+    return "org.example.p" + (i % 97) + ".Type" + i + (i % 3 == 0 ? "$Inner" : "");
+  }
+
+  @Test
+  public void testAddedNamesAreNeverRejected() {
+    ClassNameFilter filter = new ClassNameFilter(1000);
+    // more names than expected fill the filter, but they must still be found
+    for (int i = 0; i < 20000; i++) {
+      filter.put(className(i));
+    }
+    for (int i = 0; i < 20000; i++) {
+      Assert.assertTrue(className(i), filter.mightContain(className(i)));
+    }
+  }
+
+  @Test
+  public void testNamesWithTheSameHashCode() {
+    Assert.assertEquals("Aa".hashCode(), "BB".hashCode());
+    ClassNameFilter filter = new ClassNameFilter(0);
+    filter.put("a.Aa");
+    filter.put("a.BB$C");
+
+    Assert.assertTrue(filter.mightContain("a.Aa"));
+    Assert.assertTrue(filter.mightContain("a.BB$C"));
+  }
+
+  @Test
+  public void testMissingNamesAreUsuallyRejected() {
+    ClassNameFilter filter = new ClassNameFilter(10000);
+    for (int i = 0; i < 10000; i++) {
+      filter.put(className(i));
+    }
+    int falsePositives = 0;
+    for (int i = 10000; i < 20000; i++) {
+      if (filter.mightContain(className(i))) {
+        falsePositives++;
+      }
+    }
+    Assert.assertTrue("false positives: " + falsePositives, falsePositives < 200);
+  }
+}
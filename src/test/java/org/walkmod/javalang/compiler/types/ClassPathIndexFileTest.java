@@ -0,0 +1,168 @@
+package org.walkmod.javalang.compiler.types;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+
+public class ClassPathIndexFileTest {
+
+  private static final List<String> RESOURCES = Arrays.asList("foo/Bar.class", "foo/Baz.class");
+
+  private File dir;
+
+  private File indexFile;
+
+  private File jar;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = File.createTempFile("classpath-index", "");
+    dir.delete();
+    dir.mkdirs();
+    indexFile = new File(dir, "classpath.idx");
+    jar = createFile("lib.jar", "lib");
+  }
+
+  @After
+  public void tearDown() {
+    for (File file : dir.listFiles()) {
+      file.delete();
+    }
+    dir.delete();
+  }
+
+  private File createFile(String name, String content) throws IOException {
+    File file = new File(dir, name);
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(content.getBytes("UTF-8"));
+    } finally {
+      out.close();
+    }
+    return file;
+  }
+
+  private void saveIndex(File... jars) throws IOException {
+    ClassPathIndexFile index = new ClassPathIndexFile(indexFile);
+    for (File file : jars) {
+      index.putResources(file, RESOURCES);
+    }
+    Assert.assertTrue(index.isModified());
+    index.save();
+    Assert.assertFalse(index.isModified());
+  }
+
+  @Test
+  public void testUnchangedJarIsLoadedFromFile() throws IOException {
+    saveIndex(jar);
+
+    ClassPathIndexFile index = new ClassPathIndexFile(indexFile);
+
+    Assert.assertEquals(RESOURCES, index.getResources(jar));
+    Assert.assertFalse(index.isModified());
+  }
+
+  @Test
+  public void testJarWithAnotherSizeIsRescanned() throws IOException {
+    saveIndex(jar);
+    long lastModified = jar.lastModified();
+    createFile("lib.jar", "modified lib");
+    jar.setLastModified(lastModified);
+
+    Assert.assertNull(new ClassPathIndexFile(indexFile).getResources(jar));
+  }
+
+  @Test
+  public void testJarWithAnotherModificationTimeIsRescanned() throws IOException {
+    saveIndex(jar);
+    jar.setLastModified(jar.lastModified() - 10000);
+
+    Assert.assertNull(new ClassPathIndexFile(indexFile).getResources(jar));
+  }
+
+  @Test
+  public void testCorruptFileIsIgnored() throws IOException {
+    createFile(indexFile.getName(), "this is not an index");
+
+    ClassPathIndexFile index = new ClassPathIndexFile(indexFile);
+
+    Assert.assertNull(index.getResources(jar));
+    index.putResources(jar, RESOURCES);
+    index.save();
+    Assert.assertEquals(RESOURCES, new ClassPathIndexFile(indexFile).getResources(jar));
+  }
+
+  @Test
+  public void testPartialFileIsIgnored() throws IOException {
+    saveIndex(jar);
+    RandomAccessFile file = new RandomAccessFile(indexFile, "rw");
+    try {
+      file.setLength(file.length() - 4);
+    } finally {
+      file.close();
+    }
+
+    Assert.assertNull(new ClassPathIndexFile(indexFile).getResources(jar));
+  }
+
+  @Test
+  public void testJarsOutOfTheClasspathArePruned() throws IOException {
+    File other = createFile("other.jar", "other");
+    saveIndex(jar, other);
+
+    ClassPathIndexFile index = new ClassPathIndexFile(indexFile);
+    Assert.assertEquals(RESOURCES, index.getResources(jar));
+    Assert.assertTrue(index.isModified());
+    index.save();
+
+    index = new ClassPathIndexFile(indexFile);
+    Assert.assertEquals(RESOURCES, index.getResources(jar));
+    Assert.assertNull(index.getResources(other));
+  }
+
+  @Test
+  public void testJarsSavedByAnotherIndexAreKept() throws IOException {
+    File other = createFile("other.jar", "other");
+    ClassPathIndexFile first = new ClassPathIndexFile(indexFile);
+    ClassPathIndexFile second = new ClassPathIndexFile(indexFile);
+    first.putResources(jar, RESOURCES);
+    second.putResources(other, RESOURCES);
+
+    first.save();
+    second.save();
+
+    ClassPathIndexFile index = new ClassPathIndexFile(indexFile);
+    Assert.assertEquals(RESOURCES, index.getResources(jar));
+    Assert.assertEquals(RESOURCES, index.getResources(other));
+  }
+
+  @Test
+  public void testTemporaryFileIsRemovedWhenTheIndexCannotBeReplaced() throws IOException {
+    // a non empty directory can not be replaced by the index
+    indexFile.mkdirs();
+    File content = new File(indexFile, "content");
+    content.createNewFile();
+    ClassPathIndexFile index = new ClassPathIndexFile(indexFile);
+    index.putResources(jar, RESOURCES);
+
+    try {
+      index.save();
+      Assert.fail("The index can not replace a directory");
+    } catch (IOException e) {
+    } finally {
+      content.delete();
+    }
+
+    for (String name : dir.list()) {
+      Assert.assertFalse(name, name.endsWith(".tmp"));
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package org.walkmod.javalang.compiler.types;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+public class CompactPathTreeTest {
+
+  private static final String ROOT_KEY = "foo2";
+  private static final String PACKAGE = ROOT_KEY + File.separator + "bar";
+  private static final String HELLO_CLASS_KEY = PACKAGE + File.separator + "Hello.class";
+  private static final String BYE_CLASS_KEY = PACKAGE  + File.separator + "Bye.class";
+  private String AUX_CLASS_KEY = ROOT_KEY + File.separator +  "Aux.class";
+
+  @Test
+  public void testInsertion() {
+
+    CompactPathTree tree =  createTreeWithData();
+
+    Assert.assertEquals(0, tree.get(AUX_CLASS_KEY));
+    Assert.assertEquals(1, tree.get(HELLO_CLASS_KEY));
+    Assert.assertEquals(2, tree.get(BYE_CLASS_KEY));
+    Assert.assertTrue(tree.containsKey(HELLO_CLASS_KEY));
+    Assert.assertFalse(tree.containsKey(PACKAGE));
+    Assert.assertEquals(CompactPathTree.NO_VALUE, tree.get(PACKAGE));
+    Assert.assertEquals(CompactPathTree.NO_VALUE, tree.get(PACKAGE + File.separator + "Missing.class"));
+  }
+
+  private CompactPathTree createTreeWithData() {
+    CompactPathTree tree = new CompactPathTree();
+
+    tree.put(AUX_CLASS_KEY, 0);
+    tree.put(HELLO_CLASS_KEY, 1);
+    tree.put(BYE_CLASS_KEY, 2);
+    return tree;
+  }
+
+  @Test
+  public void testFirstValueWins() {
+    CompactPathTree tree = createTreeWithData();
+    tree.put(HELLO_CLASS_KEY, 5);
+    Assert.assertEquals(1, tree.get(HELLO_CLASS_KEY));
+    Assert.assertEquals(3, tree.size());
+  }
+
+  @Test
+  public void testList() {
+    CompactPathTree tree = createTreeWithData();
+    List<String> result = tree.list("");
+    Assert.assertTrue(result.isEmpty());
+
+    result = tree.list(ROOT_KEY);
+    Assert.assertTrue(result.contains(AUX_CLASS_KEY));
+    Assert.assertFalse(result.contains(HELLO_CLASS_KEY));
+
+    result = tree.list(PACKAGE);
+    Assert.assertTrue(result.contains(HELLO_CLASS_KEY));
+    Assert.assertTrue(result.contains(BYE_CLASS_KEY));
+
+    tree.put(PACKAGE + File.separator, 0);
+    result = tree.list(PACKAGE);
+    Assert.assertTrue(result.contains(PACKAGE + File.separator));
+    Assert.assertEquals(0, tree.get(PACKAGE));
+  }
+
+  @Test
+  public void testManyChildren() {
+    CompactPathTree tree = new CompactPathTree();
+    for (int i = 0; i < 100; i++) {
+      tree.put(PACKAGE + File.separator + "C" + i + ".class", i);
+    }
+    for (int i = 0; i < 100; i++) {
+      Assert.assertEquals(i, tree.get(PACKAGE + File.separator + "C" + i + ".class"));
+    }
+    Assert.assertEquals(100, tree.list(PACKAGE).size());
+  }
+
+}
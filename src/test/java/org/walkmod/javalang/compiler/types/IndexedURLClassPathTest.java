@@ -0,0 +1,143 @@
+package org.walkmod.javalang.compiler.types;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+public class IndexedURLClassPathTest {
+
+  private File dir;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = File.createTempFile("classpath", "");
+    dir.delete();
+    dir.mkdirs();
+  }
+
+  @After
+  public void tearDown() {
+    delete(dir);
+  }
+
+  private static void delete(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+
+  private File createFile(String path, String content) throws IOException {
+    File file = new File(dir, path);
+    file.getParentFile().mkdirs();
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(content.getBytes("UTF-8"));
+    } finally {
+      out.close();
+    }
+    return file;
+  }
+
+  private URL[] createDirectories(int count) throws IOException {
+    URL[] urls = new URL[count];
+    for (int i = 0; i < count; i++) {
+      createFile("cp" + i + "/foo/A.class", "A" + i);
+      createFile("cp" + i + "/foo/B" + i + ".class", "B" + i);
+      urls[i] = new File(dir, "cp" + i).toURI().toURL();
+    }
+    return urls;
+  }
+
+  private File createJar(String name, String entry, byte[] content) throws IOException {
+    File file = new File(dir, name);
+    JarOutputStream out = new JarOutputStream(new FileOutputStream(file));
+    try {
+      out.putNextEntry(new JarEntry(entry));
+      out.write(content);
+      out.closeEntry();
+    } finally {
+      out.close();
+    }
+    return file;
+  }
+
+  private static List<String> sorted(List<String> values) {
+    List<String> result = new ArrayList<String>(values);
+    Collections.sort(result);
+    return result;
+  }
+
+  @Test
+  public void testParallelIndexingKeepsTheClasspathOrder() throws IOException {
+    URL[] urls = createDirectories(4);
+    IndexedURLClassPath sequential = new IndexedURLClassPath(urls, null);
+    IndexedURLClassPath parallel = new IndexedURLClassPath(urls, null);
+    parallel.setParallelIndexing(true);
+
+    List<String> contents = parallel.listPackageContents("foo");
+
+    Assert.assertEquals(sorted(sequential.listPackageContents("foo")), sorted(contents));
+    Assert.assertTrue(contents.contains("foo/A.class"));
+    Assert.assertTrue(contents.contains("foo/B3.class"));
+    Assert.assertEquals(new URL(urls[0], "foo/A.class"), parallel.findResource("foo/A.class"));
+    Assert.assertEquals(new URL(urls[3], "foo/B3.class"), parallel.findResource("foo/B3.class"));
+    Assert.assertEquals(sequential.findResource("foo/A.class"), parallel.findResource("foo/A.class"));
+  }
+
+  @Test
+  public void testResourcesAreReadFromTheOpenJars() throws IOException {
+    byte[] content = new byte[10000];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) i;
+    }
+    URL[] urls = new URL[] {createJar("lib.jar", "foo/A.class", content).toURI().toURL()};
+    IndexedURLClassPath closed = new IndexedURLClassPath(urls, null);
+    IndexedURLClassPath open = new IndexedURLClassPath(urls, null);
+    open.setKeepJarsOpen(true);
+    try {
+      int ordinal = open.findElement("foo/A.class");
+
+      Assert.assertArrayEquals(content, closed.readResource(closed.findElement("foo/A.class"), "foo/A.class"));
+      Assert.assertArrayEquals(content, open.readResource(ordinal, "foo/A.class"));
+      Assert.assertArrayEquals(content, open.readResource(ordinal, "foo/A.class"));
+      open.close();
+      Assert.assertArrayEquals(content, open.readResource(ordinal, "foo/A.class"));
+    } finally {
+      open.close();
+    }
+  }
+
+  @Test
+  public void testContainsEveryClassOfTheClasspath() throws IOException {
+    URL[] urls = createDirectories(3);
+    createFile("cp2/foo/B2$Inner.class", "Inner");
+    IndexedURLClassPath classPath = new IndexedURLClassPath(urls, null);
+
+    Assert.assertTrue(classPath.containsClass("foo.A"));
+    for (int i = 0; i < urls.length; i++) {
+      Assert.assertTrue(classPath.containsClass("foo.B" + i));
+    }
+    Assert.assertTrue(classPath.containsClass("foo.B2$Inner"));
+    Assert.assertFalse(classPath.containsClass("foo.B3"));
+    Assert.assertFalse(classPath.containsClass("foo.B2.Inner"));
+
+    createFile("cp0/foo/C.class", "C");
+    classPath.refresh();
+    Assert.assertTrue(classPath.containsClass("foo.C"));
+  }
+}